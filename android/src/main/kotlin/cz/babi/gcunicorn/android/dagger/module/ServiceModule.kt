@@ -18,6 +18,7 @@
 
 package cz.babi.gcunicorn.android.dagger.module
 
+import android.app.Application
 import android.os.Build
 import android.util.Log
 import cz.babi.gcunicorn.android.network.Tls12SocketFactory
@@ -27,13 +28,20 @@ import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesParser
 import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesRightSideParser
 import cz.babi.gcunicorn.core.location.parser.impl.DegreesDecimalMinuteParser
 import cz.babi.gcunicorn.core.location.parser.impl.ParserWrapper
-import cz.babi.gcunicorn.core.network.InMemoryCookieJar
+import cz.babi.gcunicorn.core.network.CircuitBreaker
+import cz.babi.gcunicorn.core.network.ClientConfiguration
 import cz.babi.gcunicorn.core.network.Network
+import cz.babi.gcunicorn.core.network.PersistentCookieJar
 import cz.babi.gcunicorn.core.network.interceptor.HeaderInterceptor
 import cz.babi.gcunicorn.core.network.interceptor.LoggingInterceptor
+import cz.babi.gcunicorn.core.network.interceptor.RetryInterceptor
 import cz.babi.gcunicorn.core.network.service.Service
 import cz.babi.gcunicorn.core.network.service.geocachingcom.GCWebApi
 import cz.babi.gcunicorn.core.network.service.geocachingcom.GeoCachingCom
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.DiskGeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.GeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.TrackableCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint.CheckpointStore
 import dagger.Binds
 import dagger.Module
 import dagger.Provides
@@ -41,6 +49,7 @@ import kotlinx.serialization.json.Json
 import okhttp3.ConnectionSpec
 import okhttp3.OkHttpClient
 import okhttp3.TlsVersion
+import java.io.File
 import java.security.KeyStore
 import java.util.*
 import java.util.concurrent.TimeUnit
@@ -68,16 +77,35 @@ abstract class ServiceModule {
 
     @Module
     companion object {
+        private const val GEOCACHE_CACHE_DIRECTORY = "geocaches"
+        private const val TRACKABLE_CACHE_FILE = "trackables"
+        private const val COOKIES_FILE = "cookies"
+        private const val CHECKPOINT_DIRECTORY = "checkpoints"
 
         @Provides
         @Singleton
         @JvmStatic
-        fun providesService(network: Network, parserWrapper: ParserWrapper, json: Json, gcWebApi: GCWebApi) = GeoCachingCom(network, parserWrapper, json, gcWebApi)
+        fun providesService(network: Network, parserWrapper: ParserWrapper, json: Json, gcWebApi: GCWebApi, geocacheCache: GeocacheCache, trackableCache: TrackableCache) = GeoCachingCom(network, parserWrapper, json, gcWebApi, geocacheCache = geocacheCache, trackableCache = trackableCache)
 
         @Provides
         @Singleton
         @JvmStatic
-        fun providesOkHttpClient(): OkHttpClient {
+        fun providesGeocacheCache(application: Application): GeocacheCache = DiskGeocacheCache(File(application.cacheDir, GEOCACHE_CACHE_DIRECTORY))
+
+        @Provides
+        @Singleton
+        @JvmStatic
+        fun providesTrackableCache(application: Application) = TrackableCache(File(application.cacheDir, TRACKABLE_CACHE_FILE))
+
+        @Provides
+        @Singleton
+        @JvmStatic
+        fun providesCheckpointStore(application: Application) = CheckpointStore(File(application.cacheDir, CHECKPOINT_DIRECTORY))
+
+        @Provides
+        @Singleton
+        @JvmStatic
+        fun providesOkHttpClient(application: Application): OkHttpClient {
             val builder = OkHttpClient.Builder()
                     .connectTimeout(5, TimeUnit.SECONDS)
                     .readTimeout(5, TimeUnit.SECONDS)
@@ -85,10 +113,13 @@ abstract class ServiceModule {
                     .followRedirects(true)
                     .followSslRedirects(true)
                     .retryOnConnectionFailure(true)
-                    .cookieJar(InMemoryCookieJar())
+                    // Cookies are kept in a file, so the user stays logged in after the application is restarted.
+                    .cookieJar(PersistentCookieJar(File(application.filesDir, COOKIES_FILE)))
                     .addNetworkInterceptor(HeaderInterceptor())
                     .addNetworkInterceptor(LoggingInterceptor())
 
+            ClientConfiguration().applyTo(builder)
+            builder.addInterceptor(RetryInterceptor(circuitBreaker = CircuitBreaker()))
             applyTlsPatch(builder)
 
             return builder.build()
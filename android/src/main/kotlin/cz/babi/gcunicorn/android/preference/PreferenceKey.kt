@@ -31,7 +31,9 @@ enum class PreferenceKey(val key: String) {
     SECURE_KEY("secure_key"),
     GC_USERNAME("gc_username"),
     GC_PASSWORD("gc_password"),
-    AUTO_CLOSE_NOTIFICATION("auto_close_notification");
+    AUTO_CLOSE_NOTIFICATION("auto_close_notification"),
+    DETAIL_PARALLELISM("detail_parallelism"),
+    GEOCACHE_SECTIONS("geocache_sections");
 
     companion object {
         const val PRIVATE_PREFS = "private_prefs"
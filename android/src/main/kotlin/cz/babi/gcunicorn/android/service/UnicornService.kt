@@ -59,9 +59,12 @@ import cz.babi.gcunicorn.core.location.parser.Parser
 import cz.babi.gcunicorn.core.network.model.Credentials
 import cz.babi.gcunicorn.core.network.service.GeocacheLoadedListener
 import cz.babi.gcunicorn.core.network.service.Service
+import cz.babi.gcunicorn.core.network.service.ServiceConfiguration
+import cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint.CheckpointStore
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheFilter
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheType
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheSection
 import cz.babi.gcunicorn.`fun`.format
 import cz.babi.gcunicorn.`fun`.nullableExecute
 import kotlinx.coroutines.CancellationException
@@ -111,6 +114,9 @@ class UnicornService : JobIntentService() {
     @Inject
     lateinit var parser: Parser
 
+    @Inject
+    lateinit var checkpointStore: CheckpointStore
+
     @Inject
     @field:Named(PREFERENCES_NORMAL)
     lateinit var sharedPreferences: SharedPreferences
@@ -158,6 +164,7 @@ class UnicornService : JobIntentService() {
 
     private var maxCount = FILTER_DEFAULT_CACHE_COUNT
     private var actualCount = 0
+    private var skippedCount = 0
     private var canContinue = true
     private var downloadNotificationAlreadySent = false
     private lateinit var downloadJob: Deferred<List<Geocache>>
@@ -198,18 +205,24 @@ class UnicornService : JobIntentService() {
                     refreshNotification(NOTIFICATION_ID_DOWNLOADING, this.build())
                 }
 
+                val coordinates = parser.parse("${intent.getStringExtra(COORDINATION_LAT)}, ${intent.getStringExtra(COORDINATION_LON)}")
+                val cacheFilter = CacheFilter(
+                        listOf(CacheType.findByPattern(intent.getStringExtra(FILTER_CACHE_TYPE)!!)),
+                        intent.getDoubleExtra(FILTER_MAX_DISTANCE, CONST_FILTER_MAX_DISTANCE),
+                        intent.getBooleanExtra(FILTER_ALLOW_DISABLED, false),
+                        intent.getBooleanExtra(FILTER_EXCLUDE_OWN, false),
+                        intent.getBooleanExtra(FILTER_EXCLUDE_FOUND, false),
+                        intent.getBooleanExtra(FILTER_SKIP_PREMIUM, true),
+                        loadGeocacheSections()
+                )
+                // Work of a killed service is delivered again. The same search is then resumed from its checkpoint.
+                val checkpoint = checkpointStore.open("${sharedPreferences.getString(PreferenceKey.GC_USERNAME.key, "")}|$coordinates|$cacheFilter|$maxCount")
+
                 runBlocking {
                     downloadJob = async {
                         service.lookForCaches(
-                                parser.parse("${intent.getStringExtra(COORDINATION_LAT)}, ${intent.getStringExtra(COORDINATION_LON)}"),
-                                CacheFilter(
-                                        listOf(CacheType.findByPattern(intent.getStringExtra(FILTER_CACHE_TYPE)!!)),
-                                        intent.getDoubleExtra(FILTER_MAX_DISTANCE, CONST_FILTER_MAX_DISTANCE),
-                                        intent.getBooleanExtra(FILTER_ALLOW_DISABLED, false),
-                                        intent.getBooleanExtra(FILTER_EXCLUDE_OWN, false),
-                                        intent.getBooleanExtra(FILTER_EXCLUDE_FOUND, false),
-                                        intent.getBooleanExtra(FILTER_SKIP_PREMIUM, true)
-                                ),
+                                coordinates,
+                                cacheFilter,
                                 maxCount,
                                 object : GeocacheLoadedListener {
                                     override fun geocacheLoaded(geocache: Geocache) {
@@ -229,7 +242,13 @@ class UnicornService : JobIntentService() {
                                             }
                                         }
                                     }
-                                }
+
+                                    override fun geocacheSkipped(code: String?, reason: Throwable) {
+                                        Log.w(TAG, "Cache '$code' is skipped, its details can not be loaded.", reason)
+                                        skippedCount++
+                                    }
+                                },
+                                checkpoint
                         )
                     }
 
@@ -245,13 +264,16 @@ class UnicornService : JobIntentService() {
 
                         sendLocalBroadcast(createNotificationIntent(getText(R.string.notification_generating_gpx)))
 
-                        val gpxOutput = service.createGpx(geocaches, false)
-
-                        fileWorker.writeToExternalStorage(this@UnicornService, "${jobStarted.format(DATETIME_PATTERN_GPX, Locale.US)}.gpx", gpxOutput).nullableExecute({
+                        fileWorker.writeToExternalStorage(this@UnicornService, "${jobStarted.format(DATETIME_PATTERN_GPX, Locale.US)}.gpx") { writer ->
+                            service.createGpxWriter(writer, false).apply {
+                                geocaches.forEach { write(it) }
+                                finish()
+                            }
+                        }.nullableExecute({
                             val notificationId = Random.nextInt()
                             shareNotificationBuilder.apply {
                                 setContentTitle("${jobStarted.format(DATETIME_PATTERN_GPX, Locale.US)}.gpx")
-                                setContentText(getString(R.string.notification_gpx_exported))
+                                setContentText(if (skippedCount > 0) getString(R.string.notification_gpx_exported_skipped, skippedCount) else getString(R.string.notification_gpx_exported))
                                 addAction(0, getString(R.string.action_view_gpx), PendingIntent.getBroadcast(this@UnicornService, Random.nextInt(), createGpxShareBroadcastIntent(this@nullableExecute, notificationId).apply { putExtra(ShareBroadcastReceiver.EXTRA_SHARE_TYPE, ShareBroadcastReceiver.SHARE_TYPE_VIEW) }, createPendingIntentFlags()))
                                 addAction(0, getString(R.string.action_send_gpx), PendingIntent.getBroadcast(this@UnicornService, Random.nextInt(), createGpxShareBroadcastIntent(this@nullableExecute, notificationId).apply { putExtra(ShareBroadcastReceiver.EXTRA_SHARE_TYPE, ShareBroadcastReceiver.SHARE_TYPE_SEND) }, createPendingIntentFlags()))
                             }
@@ -260,6 +282,8 @@ class UnicornService : JobIntentService() {
                             Log.e(TAG, "Can not export GPX file.")
                         })
                     }
+
+                    checkpoint.delete()
                 }
             }
         } catch (loginException: LoginException) {
@@ -312,6 +336,16 @@ class UnicornService : JobIntentService() {
         return pendingIntentFlags
     }
 
+    /**
+     * Loads sections of geocaches' details selected in settings. All sections are loaded until the setting is changed.
+     * @return Selected sections in the order of their declaration, so the same selection always forms the same filter.
+     */
+    private fun loadGeocacheSections(): Set<GeocacheSection> {
+        val selected = sharedPreferences.getStringSet(PreferenceKey.GEOCACHE_SECTIONS.key, null) ?: return GeocacheSection.values().toSet()
+
+        return GeocacheSection.values().filter { it.name in selected }.toSet()
+    }
+
     /**
      * Do some stuff before the process of downloading could start.
      * @param intent Service's intent.
@@ -319,8 +353,13 @@ class UnicornService : JobIntentService() {
     private fun onPreExecute(intent: Intent) {
         maxCount = intent.getIntExtra(FILTER_MAX_CACHE_COUNT, FILTER_DEFAULT_CACHE_COUNT)
         actualCount = 0
+        skippedCount = 0
         canContinue = true
 
+        service.configuration = service.configuration.copy(
+                detailParallelism = sharedPreferences.getInt(PreferenceKey.DETAIL_PARALLELISM.key, ServiceConfiguration.DEFAULT_DETAIL_PARALLELISM).coerceAtLeast(1)
+        )
+
         serviceNotificationBuilder.apply {
             setContentTitle(getText(R.string.text_app_name))
             setContentText(getText(R.string.notification_logging_in))
@@ -22,9 +22,12 @@ import android.content.Context
 import android.os.Build
 import android.os.Environment
 import android.util.Log
+import java.io.BufferedWriter
 import java.io.File
 import java.io.FileOutputStream
 import java.io.IOException
+import java.io.OutputStreamWriter
+import java.io.Writer
 
 
 /**
@@ -44,18 +47,18 @@ class FileWorker() {
     /**
      * Create and file of given name with given content on external storage under [HOME_FOLDER] directory.
      * @param fileName File name.
-     * @param content Content to be written into given file name.
+     * @param content Writes content into given file name. Written content is encoded in UTF-8.
      * @return [File] instance of created file or null if an error occurred.
      */
-    fun writeToExternalStorage(context: Context, fileName: String, content: String): File? {
+    fun writeToExternalStorage(context: Context, fileName: String, content: (Writer) -> Unit): File? {
         return if (isExternalStorageWritable()) {
             getInternalStorageDirectoryHomePath(context)?.let {
                 val homeDir = File(it.absolutePath + File.separator + HOME_FOLDER + File.separator + GPX_FOLDER)
                 if (createDirectoriesIfNecessary(homeDir)) {
                     val outputFile = File(homeDir.absolutePath + File.separator + fileName)
-                    FileOutputStream(outputFile).apply {
+                    BufferedWriter(OutputStreamWriter(FileOutputStream(outputFile), Charsets.UTF_8)).apply {
                         try {
-                            write(content.toByteArray())
+                            content(this)
                             flush()
 
                             return outputFile
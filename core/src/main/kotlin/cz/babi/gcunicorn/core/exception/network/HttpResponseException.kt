@@ -0,0 +1,75 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cz.babi.gcunicorn.core.exception.network
+
+import java.text.ParseException
+import java.text.SimpleDateFormat
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * HTTP response exception.
+ *
+ * It is thrown if a server responds with unsuccessful HTTP code.
+ *
+ * @param code HTTP code returned by the server.
+ * @param retryAfter Time in milliseconds the server asked to wait for before the next request. Null if the server did not say.
+ * @since 3.1.0
+ */
+class HttpResponseException(val code: Int, val retryAfter: Long?, message: String?) : NetworkException(message) {
+
+    companion object {
+        const val CODE_TOO_MANY_REQUESTS = 429
+
+        /** Header a server uses to say how long to wait for before the next request. */
+        const val HEADER_RETRY_AFTER = "Retry-After"
+
+        private const val PATTERN_HTTP_DATE = "EEE, dd MMM yyyy HH:mm:ss zzz"
+
+        /**
+         * Checks whether given HTTP code means the server is limiting rate of requests or it is not able to handle the request at the moment.
+         * @param code HTTP code.
+         * @return True if a request responded with given code may succeed later.
+         */
+        fun isThrottled(code: Int) = code==CODE_TOO_MANY_REQUESTS || code in 500..599
+
+        /**
+         * Parses value of [HEADER_RETRY_AFTER] header. The value is either count of seconds or HTTP date.
+         * @param retryAfter Value of the header.
+         * @return Time to wait for in milliseconds or null if given value can not be parsed.
+         */
+        fun parseRetryAfter(retryAfter: String?): Long? {
+            if(retryAfter.isNullOrBlank()) return null
+
+            retryAfter.trim().toLongOrNull()?.let {
+                return TimeUnit.SECONDS.toMillis(it).coerceAtLeast(0)
+            }
+
+            return try {
+                SimpleDateFormat(PATTERN_HTTP_DATE, Locale.US).parse(retryAfter.trim())?.let { (it.time - System.currentTimeMillis()).coerceAtLeast(0) }
+            } catch(_: ParseException) {
+                null
+            }
+        }
+    }
+
+    /**
+     * True if the server is limiting rate of requests or it is not able to handle the request at the moment. Such a request may succeed later.
+     */
+    val isThrottled get() = isThrottled(code)
+}
@@ -0,0 +1,214 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.metrics
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Registry of metrics.
+ *
+ * Metrics are identified by their name and labels. Every metric of one name has to be of the same type. All metrics can
+ * be written in Prometheus text format, see [writePrometheus].
+ *
+ * @since 3.1.0
+ */
+class Metrics {
+
+    /**
+     * Stages of a search measured by [STAGE_SECONDS] timer.
+     */
+    enum class Stage { LITE_SEARCH, DETAIL_FETCH, PAGE_PARSE, LOGBOOK, TRACKABLES, GPX_BUILD }
+
+    /**
+     * Monotonically increasing counter.
+     */
+    class Counter {
+        private val value = LongAdder()
+
+        /**
+         * Increments the counter.
+         * @param amount Amount to add.
+         */
+        fun increment(amount: Long = 1) = value.add(amount)
+
+        /**
+         * Current value of the counter.
+         */
+        val count get() = value.sum()
+    }
+
+    /**
+     * Timer measuring count, total time and max time of events.
+     */
+    class Timer {
+        private val count = LongAdder()
+        private val total = LongAdder()
+        private val max = AtomicLong()
+
+        /**
+         * Records an event.
+         * @param nanos Duration of the event in nanoseconds.
+         */
+        fun record(nanos: Long) {
+            count.increment()
+            total.add(nanos)
+            max.accumulateAndGet(nanos, ::maxOf)
+        }
+
+        /**
+         * Measures given block. The block may suspend if it is called from a coroutine.
+         * @param block Block to measure.
+         * @return Result of the block.
+         */
+        inline fun <T> time(block: () -> T): T {
+            val start = System.nanoTime()
+            try {
+                return block()
+            } finally {
+                record(System.nanoTime() - start)
+            }
+        }
+
+        /** Count of recorded events. */
+        val eventCount get() = count.sum()
+
+        /** Total duration of recorded events in nanoseconds. */
+        val totalNanos get() = total.sum()
+
+        /** Max duration of a recorded event in nanoseconds. */
+        val maxNanos get() = max.get()
+    }
+
+    companion object {
+        const val STAGE_SECONDS = "gcunicorn_search_stage_seconds"
+        const val PAGE_PARSE_MISSES = "gcunicorn_page_parse_misses_total"
+        const val HTTP_RETRIES = "gcunicorn_http_retries_total"
+
+        private const val TYPE_COUNTER = "counter"
+        private const val TYPE_GAUGE = "gauge"
+        private const val TYPE_SUMMARY = "summary"
+    }
+
+    private class Family(val name: String, val help: String, val type: String) {
+        /** Metrics of the family by their rendered labels. */
+        val members = ConcurrentHashMap<String, Any>()
+    }
+
+    private val families = ConcurrentHashMap<String, Family>()
+
+    /**
+     * Returns counter of given name and labels. It is created if it does not exist.
+     * @param name Name of the counter.
+     * @param help Description of the counter.
+     * @param labels Labels of the counter.
+     * @return Counter.
+     * @throws [IllegalArgumentException] If a metric of given name exists already, but it is not a counter.
+     */
+    fun counter(name: String, help: String, vararg labels: Pair<String, String>) = member(name, help, TYPE_COUNTER, labels) { Counter() } as Counter
+
+    /**
+     * Registers counter whose value is provided by given function, e.g. a counter kept by another component.
+     * @param name Name of the counter.
+     * @param help Description of the counter.
+     * @param labels Labels of the counter.
+     * @param value Function providing current value of the counter.
+     * @throws [IllegalArgumentException] If a metric of given name exists already, but it is not a counter.
+     */
+    fun counter(name: String, help: String, vararg labels: Pair<String, String>, value: () -> Number) {
+        member(name, help, TYPE_COUNTER, labels) { value }
+    }
+
+    /**
+     * Registers gauge whose value is provided by given function.
+     * @param name Name of the gauge.
+     * @param help Description of the gauge.
+     * @param labels Labels of the gauge.
+     * @param value Function providing current value of the gauge.
+     * @throws [IllegalArgumentException] If a metric of given name exists already, but it is not a gauge.
+     */
+    fun gauge(name: String, help: String, vararg labels: Pair<String, String>, value: () -> Number) {
+        member(name, help, TYPE_GAUGE, labels) { value }
+    }
+
+    /**
+     * Returns timer of given name and labels. It is created if it does not exist.
+     * @param name Name of the timer. Time is exported in seconds.
+     * @param help Description of the timer.
+     * @param labels Labels of the timer.
+     * @return Timer.
+     * @throws [IllegalArgumentException] If a metric of given name exists already, but it is not a timer.
+     */
+    fun timer(name: String, help: String, vararg labels: Pair<String, String>) = member(name, help, TYPE_SUMMARY, labels) { Timer() } as Timer
+
+    /**
+     * Returns timer of given stage of a search.
+     * @param stage Stage of a search.
+     * @return Timer of the stage.
+     */
+    fun stage(stage: Stage) = timer(STAGE_SECONDS, "Time spent in stages of searches.", "stage" to stage.name.lowercase())
+
+    /**
+     * Writes all metrics in Prometheus text format.
+     * @param output Output to write to.
+     */
+    fun writePrometheus(output: Appendable) {
+        families.values.sortedBy { it.name }.forEach { family ->
+            output.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n')
+            output.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n')
+
+            val members = family.members.toSortedMap()
+            members.forEach { (labels, metric) ->
+                when(metric) {
+                    is Counter -> output.appendSample(family.name, labels, metric.count)
+                    is Timer -> {
+                        output.appendSample("${family.name}_count", labels, metric.eventCount)
+                        output.appendSample("${family.name}_sum", labels, metric.totalNanos.toSeconds())
+                    }
+                    is Function0<*> -> output.appendSample(family.name, labels, metric() as Number)
+                }
+            }
+
+            if(family.type==TYPE_SUMMARY) {
+                // Max is not a part of Prometheus summary, so it is exported as a separate gauge.
+                output.append("# TYPE ").append(family.name).append("_max ").append(TYPE_GAUGE).append('\n')
+                members.forEach { (labels, metric) -> output.appendSample("${family.name}_max", labels, (metric as Timer).maxNanos.toSeconds()) }
+            }
+        }
+    }
+
+    private fun member(name: String, help: String, type: String, labels: Array<out Pair<String, String>>, create: () -> Any): Any {
+        val family = families.computeIfAbsent(name) { Family(name, help, type) }
+        require(family.type==type) { "Metric '$name' is registered as ${family.type} already." }
+
+        return family.members.computeIfAbsent(labels.joinToString(",") { (key, value) -> "$key=\"${escape(value)}\"" }) { create() }
+    }
+
+    private fun escape(value: String) = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")
+
+    private fun Long.toSeconds() = this.toDouble() / TimeUnit.SECONDS.toNanos(1)
+
+    private fun Appendable.appendSample(name: String, labels: String, value: Number) {
+        append(name)
+        if(labels.isNotEmpty()) append('{').append(labels).append('}')
+        append(' ').append(value.toString()).append('\n')
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network
+
+import cz.babi.gcunicorn.`fun`.logger
+import org.slf4j.Logger
+import java.io.IOException
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Circuit breaker pausing all requests while the server is failing.
+ *
+ * The breaker is [State.CLOSED] at first. Once [failureThreshold] requests fail in a row, it opens and every request
+ * is refused until [openDuration] passes. Then it is half opened and a single trial request is let through. If the trial
+ * succeeds, the breaker is closed again, otherwise it opens for another period.
+ *
+ * The breaker never blocks. Refused requests are expected to wait outside of HTTP client's threads and to try again, but
+ * not longer than [maxWait] in total, see [cz.babi.gcunicorn.core.network.interceptor.RetryInterceptor.execute].
+ *
+ * @param failureThreshold Count of failures in a row opening the breaker.
+ * @param openDuration Time in milliseconds the breaker stays open for.
+ * @param maxWait Max time in milliseconds a request should wait for the breaker.
+ * @param clock Source of current time in milliseconds.
+ * @throws [IllegalArgumentException] If any value is out of its range.
+ * @since 3.1.0
+ */
+class CircuitBreaker(private val failureThreshold: Int = DEFAULT_FAILURE_THRESHOLD, private val openDuration: Long = DEFAULT_OPEN_DURATION, val maxWait: Long = DEFAULT_MAX_WAIT, private val clock: () -> Long = System::currentTimeMillis) {
+
+    /**
+     * State of the breaker.
+     */
+    enum class State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Exception thrown if a request is refused by the breaker.
+     *
+     * @param retryAfter Time in milliseconds after which the request may be let through.
+     */
+    class OpenException(message: String, val retryAfter: Long) : IOException(message)
+
+    companion object {
+        private val LOG: Logger = logger<CircuitBreaker>()
+
+        const val DEFAULT_FAILURE_THRESHOLD = 5
+        const val DEFAULT_OPEN_DURATION = 30_000L
+        const val DEFAULT_MAX_WAIT = 120_000L
+
+        /** Time in milliseconds after which a request refused while the trial request is running may try again. */
+        private const val TRIAL_RETRY_AFTER = 500L
+    }
+
+    private val lock = ReentrantLock()
+    private var failures = 0
+    private var openUntil = 0L
+    private var trialRunning = false
+
+    /**
+     * Current state of the breaker.
+     */
+    var state = State.CLOSED
+        get() = lock.withLock { field }
+        private set
+
+    init {
+        require(failureThreshold > 0) { "Failure threshold has to be positive number." }
+        require(openDuration >= 0) { "Open duration can not be negative number." }
+        require(maxWait >= 0) { "Max wait can not be negative number." }
+    }
+
+    /**
+     * Lets a request through or refuses it at once. Every let through request has to be followed by [onSuccess],
+     * [onFailure] or [release].
+     * @throws [OpenException] If the breaker is open or if its trial request is still running.
+     */
+    @Throws(OpenException::class)
+    fun acquire() = lock.withLock {
+        val now = clock()
+
+        when(state) {
+            State.CLOSED -> return@withLock
+            State.OPEN -> if(now >= openUntil) {
+                LOG.info("Circuit breaker is half opened, a trial request is let through.")
+                state = State.HALF_OPEN
+                trialRunning = true
+                return@withLock
+            }
+            State.HALF_OPEN -> if(!trialRunning) {
+                trialRunning = true
+                return@withLock
+            }
+        }
+
+        val retryAfter = if(state==State.OPEN) openUntil - now else TRIAL_RETRY_AFTER
+        throw OpenException("Server is failing, requests are paused.", retryAfter)
+    }
+
+    /**
+     * Releases a let through request which has neither succeeded nor failed, e.g. a cancelled one. It does not change
+     * the state, it only lets another trial request through if the released one has been the trial.
+     */
+    fun release() = lock.withLock {
+        if(state==State.HALF_OPEN) trialRunning = false
+    }
+
+    /**
+     * Records successful request. It closes the breaker.
+     */
+    fun onSuccess() = lock.withLock {
+        if(state!=State.CLOSED) LOG.info("Circuit breaker is closed.")
+
+        failures = 0
+        trialRunning = false
+        state = State.CLOSED
+    }
+
+    /**
+     * Records failed request. It opens the breaker if there have been too many failures in a row or if the trial request has failed.
+     * @param retryAfter Time in milliseconds the server asked to wait for. The breaker stays open at least for this time if it is opened.
+     */
+    fun onFailure(retryAfter: Long? = null) = lock.withLock {
+        failures++
+
+        if(state==State.HALF_OPEN || (state==State.CLOSED && failures >= failureThreshold)) {
+            val duration = maxOf(openDuration, retryAfter ?: 0)
+            LOG.warn("Circuit breaker is opened after '{}' failures, requests are paused for {} ms.", failures, duration)
+
+            openUntil = clock() + duration
+            trialRunning = false
+            state = State.OPEN
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network
+
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.brotli.BrotliInterceptor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Configuration of connections and concurrency of an [OkHttpClient].
+ *
+ * Defaults of OkHttp allow only 5 concurrent requests to a single host, which silently limits parallel downloading of
+ * geocaches' details, so the limit is raised here.
+ *
+ * @param maxIdleConnections Max count of idle connections kept in the pool.
+ * @param keepAlive Time in milliseconds an idle connection is kept in the pool for.
+ * @param maxRequests Max count of requests executed at once.
+ * @param maxRequestsPerHost Max count of requests to a single host executed at once.
+ * @param http2 Whether HTTP/2 is preferred. Requests to a host supporting it are multiplexed over a single connection.
+ * @throws [IllegalArgumentException] If any value is out of its range.
+ * @since 3.1.0
+ */
+data class ClientConfiguration(
+        val maxIdleConnections: Int = DEFAULT_MAX_IDLE_CONNECTIONS,
+        val keepAlive: Long = DEFAULT_KEEP_ALIVE,
+        val maxRequests: Int = DEFAULT_MAX_REQUESTS,
+        val maxRequestsPerHost: Int = DEFAULT_MAX_REQUESTS_PER_HOST,
+        val http2: Boolean = true
+) {
+    companion object {
+        const val DEFAULT_MAX_IDLE_CONNECTIONS = 10
+        const val DEFAULT_KEEP_ALIVE = 5L * 60 * 1000
+        const val DEFAULT_MAX_REQUESTS = 64
+        const val DEFAULT_MAX_REQUESTS_PER_HOST = 16
+    }
+
+    init {
+        require(maxIdleConnections >= 0) { "Max count of idle connections can not be negative number." }
+        require(keepAlive > 0) { "Keep-alive has to be positive number." }
+        require(maxRequests > 0) { "Max count of requests has to be positive number." }
+        require(maxRequestsPerHost > 0) { "Max count of requests per host has to be positive number." }
+    }
+
+    /**
+     * Applies the configuration to given builder. Brotli compressed responses are accepted as well as gzipped ones.
+     * @param builder Builder to configure.
+     * @param dispatcher Dispatcher to set limits of requests to. It is set to the builder.
+     * @param statistics Statistics to collect. Pass null if no statistics should be collected.
+     * @return Given builder.
+     */
+    fun applyTo(builder: OkHttpClient.Builder, dispatcher: Dispatcher = Dispatcher(), statistics: NetworkStatistics? = null): OkHttpClient.Builder {
+        dispatcher.maxRequests = maxRequests
+        dispatcher.maxRequestsPerHost = maxRequestsPerHost
+
+        builder.dispatcher(dispatcher)
+                .connectionPool(ConnectionPool(maxIdleConnections, keepAlive, TimeUnit.MILLISECONDS))
+                .protocols(if(http2) listOf(Protocol.HTTP_2, Protocol.HTTP_1_1) else listOf(Protocol.HTTP_1_1))
+
+        // Statistics have to see decoded bodies, so their interceptor goes first.
+        statistics?.let {
+            builder.addInterceptor(it.interceptor)
+            builder.eventListener(it)
+        }
+        builder.addInterceptor(BrotliInterceptor)
+
+        return builder
+    }
+}
@@ -20,52 +20,105 @@ package cz.babi.gcunicorn.core.network
 
 import okhttp3.Cookie
 import okhttp3.HttpUrl
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * In-memory implementation of Cookie policy.
  *
+ * Cookies are indexed by their domains, so only cookies of request's host and its parent domains are checked for
+ * a request. Expired cookies are removed lazily: the earliest expiration of stored cookies is tracked and the storage is
+ * swept only once it passes. The jar can be used by many requests at once.
+ *
  * @since 1.0.0
  */
-class InMemoryCookieJar : DefaultCookieJar {
+open class InMemoryCookieJar : DefaultCookieJar {
+
+    /** Cookies by their domains. Cookies of one domain are keyed by their names and paths. */
+    private val storage = ConcurrentHashMap<String, ConcurrentHashMap<String, Cookie>>()
+
+    private val lock = Any()
 
-    private val storage = mutableMapOf<String, Cookie>()
+    /** The earliest expiration of stored cookies. There is no need to look for expired cookies before. */
+    @Volatile
+    private var nextExpiration = Long.MAX_VALUE
 
     override fun saveFromResponse(url: HttpUrl, cookies: List<Cookie>) {
-        cookies.forEach { cookie ->
-            val key = cookie.domain + ";" + cookie.name
-            storage[key] = cookie
-        }
+        cookies.forEach { cookie -> store(cookie) }
     }
 
     override fun loadForRequest(url: HttpUrl): List<Cookie> {
-        dumpOldCookies()
+        val now = System.currentTimeMillis()
+        if (now >= nextExpiration) {
+            dumpOldCookies(now)
+        }
 
         val cookies = mutableListOf<Cookie>()
 
-        url.let {
-            for (cookie: Cookie in storage.values) {
-                if (cookie.matches(url)) {
+        // Look up request's host and all its parent domains.
+        var domain = url.host
+        while (true) {
+            storage[domain]?.values?.forEach { cookie ->
+                if (cookie.expiresAt > now && cookie.matches(url)) {
                     cookies.add(cookie)
                 }
             }
+
+            val dotIndex = domain.indexOf('.')
+            if (dotIndex < 0) break
+            domain = domain.substring(dotIndex + 1)
         }
 
         return cookies
     }
 
-    override fun clearCookies() = storage.clear()
+    override fun clearCookies() = synchronized(lock) {
+        storage.clear()
+        nextExpiration = Long.MAX_VALUE
+    }
+
+    /**
+     * Returns all stored cookies which have not expired yet.
+     * @return Stored cookies.
+     */
+    fun getCookies(): List<Cookie> {
+        val now = System.currentTimeMillis()
+        return storage.values.flatMap { it.values }.filter { it.expiresAt > now }
+    }
 
     /**
-     * Dump old cookies.
+     * Stores given cookie. It replaces a cookie of the same domain, name and path.
+     * @param cookie Cookie to store.
      */
-    private fun dumpOldCookies() {
-        val iterator = storage.values.iterator()
+    protected fun store(cookie: Cookie) {
+        storage.computeIfAbsent(cookie.domain) { ConcurrentHashMap() }["${cookie.name};${cookie.path}"] = cookie
 
-        while (iterator.hasNext()) {
-            val cookie = iterator.next()
-            if (cookie.expiresAt < System.currentTimeMillis()) {
-                iterator.remove()
+        synchronized(lock) {
+            if (cookie.expiresAt < nextExpiration) {
+                nextExpiration = cookie.expiresAt
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Dump old cookies and find the next expiration.
+     * @param now Current time in milliseconds.
+     */
+    private fun dumpOldCookies(now: Long) = synchronized(lock) {
+        var earliestExpiration = Long.MAX_VALUE
+
+        storage.values.forEach { cookies ->
+            val iterator = cookies.values.iterator()
+
+            while (iterator.hasNext()) {
+                val cookie = iterator.next()
+                if (cookie.expiresAt <= now) {
+                    iterator.remove()
+                } else if (cookie.expiresAt < earliestExpiration) {
+                    earliestExpiration = cookie.expiresAt
+                }
+            }
+        }
+
+        nextExpiration = earliestExpiration
+    }
+}
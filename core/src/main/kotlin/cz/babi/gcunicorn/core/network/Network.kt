@@ -18,13 +18,19 @@
 
 package cz.babi.gcunicorn.core.network
 
+import cz.babi.gcunicorn.core.exception.network.HttpResponseException
 import cz.babi.gcunicorn.core.exception.network.NetworkException
+import cz.babi.gcunicorn.core.network.interceptor.RetryInterceptor
+import cz.babi.gcunicorn.core.network.model.CacheValidators
 import cz.babi.gcunicorn.core.network.model.HttpParameters
 import cz.babi.gcunicorn.`fun`.logger
-import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.coroutineScope
-import kotlinx.coroutines.withContext
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.serialization.ExperimentalSerializationApi
 import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.decodeFromStream
+import okhttp3.Call
+import okhttp3.Callback
 import okhttp3.FormBody
 import okhttp3.HttpUrl.Companion.toHttpUrlOrNull
 import okhttp3.OkHttpClient
@@ -33,12 +39,18 @@ import okhttp3.Response
 import org.slf4j.Logger
 import java.io.IOException
 import java.io.InputStream
+import java.io.InputStreamReader
+import java.io.Reader
 import java.io.UnsupportedEncodingException
 import java.net.URLDecoder
+import kotlin.coroutines.resumeWithException
 
 /**
  * Implementation making any HTTP requests.
  *
+ * If given client contains [RetryInterceptor], failed requests are retried by [RetryInterceptor.execute], so no thread is
+ * blocked while waiting for a retry.
+ *
  * @param okHttpClient Underlying http client.
  * @param json Json for deserialization.
  * @since 1.0.0
@@ -52,8 +64,18 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
 
     companion object {
         private val LOG: Logger = logger<Network>()
+
+        /** HTTP code of a response to a conditional request whose stored response is still valid. */
+        const val CODE_NOT_MODIFIED = 304
+
+        private const val HEADER_ETAG = "ETag"
+        private const val HEADER_LAST_MODIFIED = "Last-Modified"
+        private const val HEADER_IF_NONE_MATCH = "If-None-Match"
+        private const val HEADER_IF_MODIFIED_SINCE = "If-Modified-Since"
     }
 
+    private val retryInterceptor = okHttpClient.interceptors.filterIsInstance<RetryInterceptor>().firstOrNull()
+
     /**
      * Clears cookies.
      */
@@ -111,6 +133,46 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
     @Throws(NetworkException::class)
     suspend fun getRequest(uri: String, parameters: HttpParameters?, headers: HttpParameters?) = request(Method.GET, uri, parameters, headers)
 
+    /**
+     * Makes new conditional [Method.GET] request to given uri. If the resource has not changed since given validators
+     * have been obtained, the server responds with [CODE_NOT_MODIFIED] and no body.
+     * @param uri URI to make new [Method.GET] request to.
+     * @param validators Validators of stored response. Plain request is made if there are none.
+     * @return An HTTP response.
+     * @throws [NetworkException] If anything goes wrong.
+     * @see isNotModified
+     */
+    @Throws(NetworkException::class)
+    suspend fun conditionalGetRequest(uri: String, validators: CacheValidators?): Response {
+        val headers = validators?.let {
+            HttpParameters().apply {
+                it.eTag?.let { eTag -> put(HEADER_IF_NONE_MATCH, eTag) }
+                it.lastModified?.let { lastModified -> put(HEADER_IF_MODIFIED_SINCE, lastModified) }
+            }
+        }
+
+        return getRequest(uri, null, headers)
+    }
+
+    /**
+     * Checks whether given response says that the stored response is still valid.
+     * @param response Response to a conditional request.
+     * @return True if the stored response is still valid.
+     */
+    fun isNotModified(response: Response) = response.code==CODE_NOT_MODIFIED
+
+    /**
+     * Obtains validators of given response.
+     * @param response Response obtained from http call.
+     * @return Validators or null if the response has none.
+     */
+    fun getCacheValidators(response: Response): CacheValidators? {
+        val eTag = response.header(HEADER_ETAG)
+        val lastModified = response.header(HEADER_LAST_MODIFIED)
+
+        return if(eTag==null && lastModified==null) null else CacheValidators(eTag, lastModified)
+    }
+
     /**
      * Makes new [Method.GET] request to given uri.
      * @param T Target class.
@@ -184,9 +246,9 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
             }
 
             try {
-                withContext(Dispatchers.IO) {
-                    okHttpClient.newCall(requestBuilder.build()).execute()
-                }
+                val request = requestBuilder.build()
+
+                retryInterceptor?.execute(request) { okHttpClient.newCall(it).await() } ?: okHttpClient.newCall(request).await()
             } catch (ioException: IOException) {
                 throw NetworkException("The request can not be executed due timeout, cancellation or network issue.", ioException)
             } catch (illegalStateException: IllegalStateException) {
@@ -198,7 +260,30 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
     }
 
     /**
-     * Returns deserialized request.
+     * Enqueues the call and suspends until its response is received. No thread is blocked while waiting. The call is
+     * cancelled once the coroutine is cancelled, so its connection is released immediately.
+     * @return Response.
+     * @throws [IOException] If the call fails or it is cancelled.
+     * @throws [IllegalStateException] If the call has been executed already.
+     */
+    @Throws(IOException::class, IllegalStateException::class)
+    private suspend fun Call.await(): Response = suspendCancellableCoroutine { continuation ->
+        continuation.invokeOnCancellation { cancel() }
+
+        enqueue(object : Callback {
+            override fun onResponse(call: Call, response: Response) {
+                // The response has to be closed if nobody is waiting for it anymore.
+                continuation.resume(response) { _, value, _ -> value.close() }
+            }
+
+            override fun onFailure(call: Call, e: IOException) {
+                continuation.resumeWithException(e)
+            }
+        })
+    }
+
+    /**
+     * Returns deserialized request. The response is decoded directly from its stream, the body is never held as a whole.
      * @param T Target class.
      * @param method [Network.Method] method.
      * @param uri URI.
@@ -206,10 +291,18 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
      * @param headers HTTP headers.
      * @return Response.
      * @throws [NetworkException] If the request has been already executed or if the request can not be executed due timeout, cancellation or network issue or if given uri can not be parsed.
+     * @throws [kotlinx.serialization.SerializationException] If the response can not be decoded.
      */
+    @OptIn(ExperimentalSerializationApi::class)
     @Throws(NetworkException::class)
     suspend inline fun <reified T> requestFor(method: Method, uri: String, parameters: HttpParameters?, headers: HttpParameters?): T {
-        return json.decodeFromString<T>(getResponseStringBody(request(method, uri, parameters, headers)))
+        return request(method, uri, parameters, headers).use { response ->
+            try {
+                getResponseByteStreamBody(response).use { json.decodeFromStream<T>(it) }
+            } catch (e: IOException) {
+                throw NetworkException("Can't obtain response body.", e)
+            }
+        }
     }
 
     /**
@@ -223,7 +316,7 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
         if(!response.isSuccessful) {
             response.body?.close()
 
-            throw NetworkException("Request was not successful. Returned code is '${response.code}'.")
+            throw createHttpResponseException(response)
         }
 
         try {
@@ -246,7 +339,7 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
     @Throws(NetworkException::class)
     fun getResponseByteStreamBody(response: Response): InputStream {
         if(!response.isSuccessful) {
-            throw NetworkException("Request was not successful. Returned code is '${response.code}'.")
+            throw createHttpResponseException(response)
         }
 
         try {
@@ -255,4 +348,30 @@ class Network(private val okHttpClient: OkHttpClient, val json: Json) {
             throw NetworkException("Can't obtain response body.", e)
         }
     }
+
+    /**
+     * Tries to obtain response body as character stream from given [Response]. Charset is taken from response's content type, [Charsets.UTF_8] is used by default.
+     *
+     * __The caller is responsible for closing the stream.__
+     * @param response Response obtained from http call.
+     * @return Response body as character stream.
+     * @throws NetworkException If anything goes wrong.
+     */
+    @Throws(NetworkException::class)
+    fun getResponseCharStreamBody(response: Response): Reader {
+        val charset = response.body?.contentType()?.charset(Charsets.UTF_8) ?: Charsets.UTF_8
+
+        return InputStreamReader(getResponseByteStreamBody(response), charset)
+    }
+
+    /**
+     * Creates an exception for unsuccessful response.
+     * @param response Unsuccessful response.
+     * @return Exception describing given response.
+     */
+    private fun createHttpResponseException(response: Response) = HttpResponseException(
+        response.code,
+        HttpResponseException.parseRetryAfter(response.header(HttpResponseException.HEADER_RETRY_AFTER)),
+        "Request was not successful. Returned code is '${response.code}'."
+    )
 }
\ No newline at end of file
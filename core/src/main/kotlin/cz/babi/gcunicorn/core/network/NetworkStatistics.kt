@@ -0,0 +1,149 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network
+
+import cz.babi.gcunicorn.core.metrics.Metrics
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.Protocol
+import okhttp3.ResponseBody
+import okio.Buffer
+import okio.BufferedSource
+import okio.ForwardingSource
+import okio.buffer
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Statistics of HTTP calls of all clients it is applied to, see [ClientConfiguration.applyTo].
+ *
+ * It counts how many connections have been opened and how many times a pooled one has been reused, and compares size
+ * of response bodies transferred over the network with their size once they are decompressed.
+ *
+ * @since 3.1.0
+ */
+class NetworkStatistics : EventListener() {
+
+    /**
+     * Snapshot of the statistics.
+     *
+     * @param calls Count of started calls.
+     * @param failedCalls Count of failed calls.
+     * @param connectionsOpened Count of newly opened connections.
+     * @param connectionsAcquired Count of connections acquired by calls, including reused ones.
+     * @param http2ConnectionsAcquired Count of acquired HTTP/2 connections.
+     * @param transferredBytes Count of bytes of response bodies transferred over the network.
+     * @param decodedBytes Count of bytes of response bodies read after their decompression.
+     */
+    data class Snapshot(
+            val calls: Long,
+            val failedCalls: Long,
+            val connectionsOpened: Long,
+            val connectionsAcquired: Long,
+            val http2ConnectionsAcquired: Long,
+            val transferredBytes: Long,
+            val decodedBytes: Long
+    ) {
+        /** Count of acquisitions of already opened connections. */
+        val connectionsReused get() = (connectionsAcquired - connectionsOpened).coerceAtLeast(0)
+
+        /** Ratio of reused connections to all acquired ones. */
+        val connectionReuseRatio get() = if(connectionsAcquired==0L) 0.0 else connectionsReused.toDouble() / connectionsAcquired
+
+        /** Ratio of decoded bytes to transferred ones. */
+        val compressionRatio get() = if(transferredBytes==0L) 1.0 else decodedBytes.toDouble() / transferredBytes
+    }
+
+    private val calls = AtomicLong()
+    private val failedCalls = AtomicLong()
+    private val connectionsOpened = AtomicLong()
+    private val connectionsAcquired = AtomicLong()
+    private val http2ConnectionsAcquired = AtomicLong()
+    private val transferredBytes = AtomicLong()
+    private val decodedBytes = AtomicLong()
+
+    /** Application interceptor counting bytes of decoded response bodies. */
+    val interceptor = Interceptor { chain ->
+        val response = chain.proceed(chain.request())
+        response.newBuilder().body(CountingResponseBody(response.body)).build()
+    }
+
+    /**
+     * Returns current values of the statistics.
+     * @return Snapshot of the statistics.
+     */
+    fun snapshot() = Snapshot(calls.get(), failedCalls.get(), connectionsOpened.get(), connectionsAcquired.get(), http2ConnectionsAcquired.get(), transferredBytes.get(), decodedBytes.get())
+
+    /**
+     * Registers the statistics as counters of given metrics.
+     * @param metrics Metrics to register the statistics in.
+     */
+    fun bindTo(metrics: Metrics) {
+        metrics.counter("gcunicorn_http_calls_total", "Started HTTP calls.") { calls.get() }
+        metrics.counter("gcunicorn_http_calls_failed_total", "Failed HTTP calls.") { failedCalls.get() }
+        metrics.counter("gcunicorn_http_connections_opened_total", "Opened HTTP connections.") { connectionsOpened.get() }
+        metrics.counter("gcunicorn_http_connections_acquired_total", "HTTP connections acquired by calls, including reused ones.") { connectionsAcquired.get() }
+        metrics.counter("gcunicorn_http_response_bytes_total", "Bytes of HTTP response bodies.", "encoding" to "transferred") { transferredBytes.get() }
+        metrics.counter("gcunicorn_http_response_bytes_total", "Bytes of HTTP response bodies.", "encoding" to "decoded") { decodedBytes.get() }
+    }
+
+    override fun callStart(call: Call) {
+        calls.incrementAndGet()
+    }
+
+    override fun callFailed(call: Call, ioe: IOException) {
+        failedCalls.incrementAndGet()
+    }
+
+    override fun connectEnd(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy, protocol: Protocol?) {
+        connectionsOpened.incrementAndGet()
+    }
+
+    override fun connectionAcquired(call: Call, connection: Connection) {
+        connectionsAcquired.incrementAndGet()
+        if(connection.protocol()==Protocol.HTTP_2) http2ConnectionsAcquired.incrementAndGet()
+    }
+
+    override fun responseBodyEnd(call: Call, byteCount: Long) {
+        // The body is read before decompression here.
+        transferredBytes.addAndGet(byteCount)
+    }
+
+    private inner class CountingResponseBody(private val delegate: ResponseBody) : ResponseBody() {
+
+        private val source by lazy {
+            object : ForwardingSource(delegate.source()) {
+                override fun read(sink: Buffer, byteCount: Long) = super.read(sink, byteCount).also {
+                    if(it > 0) decodedBytes.addAndGet(it)
+                }
+            }.buffer()
+        }
+
+        override fun contentType(): MediaType? = delegate.contentType()
+
+        override fun contentLength() = delegate.contentLength()
+
+        override fun source(): BufferedSource = source
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network
+
+import cz.babi.gcunicorn.`fun`.logger
+import okhttp3.Cookie
+import okhttp3.HttpUrl
+import okhttp3.HttpUrl.Companion.toHttpUrlOrNull
+import org.slf4j.Logger
+import java.io.File
+import java.io.IOException
+
+/**
+ * Cookie policy keeping cookies in given file as well, so they survive restarts of the application.
+ *
+ * The file is rewritten whenever new cookies are received, which is rare, e.g. while logging in. All cookies are kept,
+ * including session ones, so the user stays logged in.
+ *
+ * @param file File to keep cookies in.
+ * @since 3.1.0
+ */
+class PersistentCookieJar(private val file: File) : InMemoryCookieJar() {
+
+    companion object {
+        private val LOG: Logger = logger<PersistentCookieJar>()
+
+        private const val SEPARATOR = '\t'
+    }
+
+    init {
+        if (file.isFile) {
+            try {
+                file.readLines(Charsets.UTF_8).forEach { line ->
+                    val separatorIndex = line.indexOf(SEPARATOR)
+                    if (separatorIndex < 0) return@forEach
+
+                    val url = line.substring(0, separatorIndex).toHttpUrlOrNull() ?: return@forEach
+                    Cookie.parse(url, line.substring(separatorIndex + 1))?.let { store(it) }
+                }
+            } catch (e: IOException) {
+                LOG.warn("Can not read cookies from '{}'.", file, e)
+            }
+        }
+    }
+
+    override fun saveFromResponse(url: HttpUrl, cookies: List<Cookie>) {
+        super.saveFromResponse(url, cookies)
+
+        if (cookies.isNotEmpty()) {
+            save()
+        }
+    }
+
+    override fun clearCookies() {
+        super.clearCookies()
+
+        synchronized(file) {
+            file.delete()
+        }
+    }
+
+    /**
+     * Writes all stored cookies into the file.
+     */
+    private fun save() = synchronized(file) {
+        val temporaryFile = File(file.path + ".tmp")
+        try {
+            file.parentFile?.mkdirs()
+
+            // The url is needed to parse the cookie back, e.g. to tell host-only cookies.
+            temporaryFile.writeText(getCookies().joinToString("") { "https://${it.domain}${it.path}$SEPARATOR$it\n" }, Charsets.UTF_8)
+
+            if (!temporaryFile.renameTo(file) && !(file.delete() && temporaryFile.renameTo(file))) {
+                throw IOException("Can not rename '$temporaryFile' to '$file'.")
+            }
+        } catch (e: IOException) {
+            LOG.warn("Can not save cookies into '{}'.", file, e)
+            temporaryFile.delete()
+        }
+    }
+}
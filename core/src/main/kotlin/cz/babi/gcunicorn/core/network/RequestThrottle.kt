@@ -0,0 +1,214 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cz.babi.gcunicorn.core.network
+
+import cz.babi.gcunicorn.core.exception.network.HttpResponseException
+import cz.babi.gcunicorn.`fun`.logger
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.selects.select
+import kotlinx.coroutines.withTimeoutOrNull
+import org.slf4j.Logger
+
+/**
+ * Adaptive limiter of concurrent requests.
+ *
+ * At most [limit] blocks run at once, the rest waits in FIFO order. The limit starts at [maxParallelism]. If a block fails
+ * because the server is throttling (see [HttpResponseException.isThrottled]), the limit is halved, no other block is
+ * started during a back-off delay and the failed block is retried once the delay passes. Every [limit] successful blocks in
+ * a row raise the limit by one until it reaches [maxParallelism] again. Waiting blocks check the throttle again once the
+ * back-off delay passes, so they are started even if no other block finishes after it.
+ *
+ * Requests may be retried by [cz.babi.gcunicorn.core.network.interceptor.RetryInterceptor] already. In such case pass
+ * zero max retries, so the throttle only adapts the limit.
+ *
+ * @param maxParallelism Max count of blocks running at once.
+ * @param maxRetries Max count of retries of a throttled block.
+ * @param backOff Back-off delay in milliseconds used for the first retry. It doubles with every next retry unless the server asks for a specific delay.
+ * @param maxBackOff Max back-off delay in milliseconds.
+ * @since 3.1.0
+ */
+class RequestThrottle(maxParallelism: Int, private val maxRetries: Int = DEFAULT_MAX_RETRIES, private val backOff: Long = DEFAULT_BACK_OFF, private val maxBackOff: Long = DEFAULT_MAX_BACK_OFF) {
+
+    companion object {
+        private val LOG: Logger = logger<RequestThrottle>()
+
+        const val DEFAULT_MAX_RETRIES = 3
+        const val DEFAULT_BACK_OFF = 1_000L
+        const val DEFAULT_MAX_BACK_OFF = 30_000L
+    }
+
+    private val lock = Any()
+    private val waiters = ArrayDeque<CompletableDeferred<Unit>>()
+    private var active = 0
+    private var successes = 0
+    private var pausedUntil = 0L
+    /** Completed whenever a pause starts, so waiting blocks know when to check the throttle again. */
+    private var pauseStarted = CompletableDeferred<Unit>()
+
+    /**
+     * Current limit of blocks running at once.
+     */
+    var limit = maxParallelism
+        private set
+
+    /**
+     * Max count of blocks running at once. Setting new value resets [limit] to it.
+     * @throws [IllegalArgumentException] If the value is not positive.
+     */
+    var maxParallelism = maxParallelism
+        set(value) {
+            require(value > 0) { "Max parallelism has to be positive number." }
+
+            synchronized(lock) {
+                field = value
+                limit = value
+                successes = 0
+                dispatch()
+            }
+        }
+
+    init {
+        require(maxParallelism > 0) { "Max parallelism has to be positive number." }
+    }
+
+    /**
+     * Runs given block once there is a free slot for it. Throttled block is retried at most [maxRetries] times.
+     * @param block Block making a request.
+     * @return Result of given block.
+     * @throws [HttpResponseException] If the block is still throttled after all retries or if it fails with not throttled response.
+     */
+    suspend fun <T> execute(block: suspend () -> T): T {
+        acquire()
+
+        try {
+            var attempt = 0
+            while(true) {
+                try {
+                    return block().also { onSuccess() }
+                } catch(e: HttpResponseException) {
+                    if(!e.isThrottled) {
+                        throw e
+                    }
+
+                    // The limit is lowered even if the block is not retried anymore, so other blocks do not hit the server so hard.
+                    val backOffDelay = onThrottled(e, attempt)
+                    if(attempt++ >= maxRetries) {
+                        throw e
+                    }
+
+                    LOG.warn("Server responded with code '{}'. Limit of concurrent requests is lowered to '{}' and the request will be retried in {} ms.", e.code, limit, backOffDelay)
+
+                    delay(backOffDelay)
+
+                    synchronized(lock) { dispatch() }
+                }
+            }
+        } finally {
+            release()
+        }
+    }
+
+    private suspend fun acquire() {
+        val waiter = CompletableDeferred<Unit>()
+
+        synchronized(lock) {
+            if(waiters.isEmpty() && canStart()) {
+                active++
+                return
+            }
+
+            waiters.addLast(waiter)
+        }
+
+        try {
+            while(true) {
+                // Nobody may release a slot once the pause is over, so the waiter checks the throttle itself then.
+                val (pause, started) = synchronized(lock) { pausedUntil - System.currentTimeMillis() to pauseStarted }
+                val handedOver = if(pause > 0) {
+                    withTimeoutOrNull(pause) { waiter.await() } != null
+                } else {
+                    select {
+                        waiter.onAwait { true }
+                        started.onAwait { false }
+                    }
+                }
+                if(handedOver) return
+
+                synchronized(lock) { dispatch() }
+            }
+        } catch(e: Throwable) {
+            synchronized(lock) {
+                // The slot could have been handed over already.
+                if(!waiters.remove(waiter)) {
+                    active--
+                    dispatch()
+                }
+            }
+
+            throw e
+        }
+    }
+
+    private fun release() {
+        synchronized(lock) {
+            active--
+            dispatch()
+        }
+    }
+
+    private fun onSuccess() {
+        synchronized(lock) {
+            if(limit < maxParallelism && ++successes >= limit) {
+                limit++
+                successes = 0
+                dispatch()
+            }
+        }
+    }
+
+    /**
+     * Lowers the limit and pauses starting of new blocks.
+     * @return Back-off delay in milliseconds.
+     */
+    private fun onThrottled(e: HttpResponseException, attempt: Int): Long {
+        val backOffDelay = (e.retryAfter ?: (backOff shl attempt.coerceAtMost(30))).coerceIn(0, maxBackOff)
+
+        synchronized(lock) {
+            limit = (limit / 2).coerceAtLeast(1)
+            successes = 0
+            pausedUntil = maxOf(pausedUntil, System.currentTimeMillis() + backOffDelay)
+            pauseStarted.complete(Unit)
+            pauseStarted = CompletableDeferred()
+        }
+
+        return backOffDelay
+    }
+
+    private fun canStart() = active < limit && System.currentTimeMillis() >= pausedUntil
+
+    /**
+     * Hands free slots over to waiting blocks. It has to be called while holding the lock.
+     */
+    private fun dispatch() {
+        while(waiters.isNotEmpty() && canStart()) {
+            active++
+            waiters.removeFirst().complete(Unit)
+        }
+    }
+}
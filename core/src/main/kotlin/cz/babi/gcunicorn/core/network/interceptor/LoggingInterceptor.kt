@@ -34,7 +34,15 @@ class LoggingInterceptor : Interceptor {
 
     companion object {
         private val LOG: Logger = logger<LoggingInterceptor>()
-        private val PATTERN_PASSWORD = Pattern.compile("(?<=[?&])[Pp]ass(w(or)?d)?=[^&#$]+")
+        private val PATTERN_PASSWORD = Pattern.compile("(?:^|(?<=[?&]))[Pp]ass(w(or)?d)?=[^&#$]+")
+
+        /**
+         * Hides password from given message.
+         * @param message Message to be obfuscated, e.g. url or form body.
+         * @return Obfuscated message.
+         * @since 3.1.0
+         */
+        internal fun hidePassword(message: String): String = PATTERN_PASSWORD.matcher(message).replaceAll("password=***")
     }
 
     override fun intercept(chain: Interceptor.Chain): Response {
@@ -64,13 +72,6 @@ class LoggingInterceptor : Interceptor {
         }
     }
 
-    /**
-     * Hides password from given message.
-     * @param message Message to be obfuscated.
-     * @return Obfuscated message.
-     */
-    private fun hidePassword(message: String) = PATTERN_PASSWORD.matcher(message).replaceAll("password=***")
-
     /**
      * Obtain duration between 'now' and passed time in milliseconds.
      * @param before Time in milliseconds.
@@ -0,0 +1,92 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.interceptor
+
+import cz.babi.gcunicorn.core.network.record.TrafficArchive
+import cz.babi.gcunicorn.`fun`.logger
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.toResponseBody
+import okio.Buffer
+import org.slf4j.Logger
+import java.io.IOException
+
+/**
+ * Interceptor recording every exchange into given archive, so it can be replayed later by [ReplayInterceptor].
+ *
+ * Credentials are scrubbed before they are recorded: passwords in urls and form bodies the same way
+ * [LoggingInterceptor] hides them, access tokens in response bodies, and cookies. Bodies are recorded decoded, so the
+ * interceptor has to be added as an application interceptor before any interceptor decompressing responses, e.g.
+ * before [cz.babi.gcunicorn.core.network.ClientConfiguration.applyTo] is called. Failure of recording does not fail
+ * the request.
+ *
+ * @param archive Archive to record exchanges into.
+ * @since 3.1.0
+ */
+class RecordingInterceptor(private val archive: TrafficArchive) : Interceptor {
+
+    companion object {
+        private val LOG: Logger = logger<RecordingInterceptor>()
+
+        /** Response headers which are not recorded. Cookies carry user's session and bodies are recorded decoded. */
+        private val SKIPPED_HEADERS = setOf("set-cookie", "content-encoding", "content-length")
+
+        private val REGEX_ACCESS_TOKEN = "(\"access_token\"\\s*:\\s*\")[^\"]*".toRegex()
+    }
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val start = System.currentTimeMillis()
+        val response = chain.proceed(request)
+
+        val contentType = response.body.contentType()
+        val body = response.body.bytes()
+
+        try {
+            archive.append(TrafficArchive.Exchange(
+                    request.method,
+                    LoggingInterceptor.hidePassword(request.url.toString()),
+                    readRequestBody(request),
+                    response.code,
+                    response.message,
+                    response.headers.filter { (name, _) -> name.lowercase() !in SKIPPED_HEADERS },
+                    hideAccessToken(body),
+                    System.currentTimeMillis() - start
+            ))
+        } catch(e: IOException) {
+            LOG.warn("Can not record response of '{}'.", LoggingInterceptor.hidePassword(request.url.toString()), e)
+        }
+
+        return response.newBuilder().body(body.toResponseBody(contentType)).build()
+    }
+
+    private fun readRequestBody(request: Request) = request.body?.let {
+        val buffer = Buffer()
+        it.writeTo(buffer)
+        LoggingInterceptor.hidePassword(buffer.readUtf8())
+    }
+
+    private fun hideAccessToken(body: ByteArray): ByteArray {
+        val text = String(body, Charsets.UTF_8)
+        if(!REGEX_ACCESS_TOKEN.containsMatchIn(text)) return body
+
+        return REGEX_ACCESS_TOKEN.replace(text, "$1***").toByteArray(Charsets.UTF_8)
+    }
+}
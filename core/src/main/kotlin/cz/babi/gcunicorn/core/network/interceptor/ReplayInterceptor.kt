@@ -0,0 +1,81 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.interceptor
+
+import cz.babi.gcunicorn.core.network.record.TrafficArchive
+import okhttp3.Headers
+import okhttp3.Interceptor
+import okhttp3.MediaType.Companion.toMediaTypeOrNull
+import okhttp3.Protocol
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.toResponseBody
+import java.io.IOException
+import java.io.InterruptedIOException
+
+/**
+ * Interceptor answering requests with exchanges recorded by [RecordingInterceptor], so searches can be repeated offline
+ * and deterministically.
+ *
+ * A request is matched by its method and url. Exchanges of the same request are replayed in order they have been
+ * recorded, the last one of them is replayed repeatedly. No request reaches the network, so the interceptor has to be
+ * added as the first application interceptor.
+ *
+ * @param archive Archive of recorded exchanges. It is read once the interceptor is created.
+ * @param simulateLatency Pass true if every response should be delayed by time its exchange took while recording.
+ * @throws [IOException] If the archive can not be read.
+ * @since 3.1.0
+ */
+class ReplayInterceptor(archive: TrafficArchive, private val simulateLatency: Boolean = false) : Interceptor {
+
+    /** Recorded exchanges by their requests, in order they have been recorded. */
+    private val exchanges = archive.read().groupByTo(HashMap(), { key(it.method, it.url) }, { it }).mapValues { ArrayDeque(it.value) }
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val key = key(request.method, LoggingInterceptor.hidePassword(request.url.toString()))
+        val exchange = synchronized(exchanges) {
+            exchanges[key]?.let { if(it.size > 1) it.removeFirst() else it.first() }
+        } ?: throw IOException("There is no recorded response for '$key'.")
+
+        if(simulateLatency) {
+            try {
+                Thread.sleep(exchange.duration)
+            } catch(e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                throw InterruptedIOException("Interrupted while replaying response.").apply { initCause(e) }
+            }
+        }
+
+        val headers = Headers.Builder().apply { exchange.headers.forEach { (name, value) -> add(name, value) } }.build()
+        val now = System.currentTimeMillis()
+
+        return Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(exchange.code)
+                .message(exchange.message)
+                .headers(headers)
+                .body(exchange.body.toResponseBody(headers["Content-Type"]?.toMediaTypeOrNull()))
+                .sentRequestAtMillis(now - exchange.duration)
+                .receivedResponseAtMillis(now)
+                .build()
+    }
+
+    private fun key(method: String, url: String) = "$method $url"
+}
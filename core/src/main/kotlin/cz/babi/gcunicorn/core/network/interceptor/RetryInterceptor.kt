@@ -0,0 +1,163 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.interceptor
+
+import cz.babi.gcunicorn.core.exception.network.HttpResponseException
+import cz.babi.gcunicorn.core.metrics.Metrics
+import cz.babi.gcunicorn.core.network.CircuitBreaker
+import cz.babi.gcunicorn.`fun`.logger
+import kotlinx.coroutines.delay
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import org.slf4j.Logger
+import java.io.IOException
+import kotlin.random.Random
+
+/**
+ * Interceptor guarding requests by a circuit breaker together with policy of retrying failed requests.
+ *
+ * The interceptor itself never waits. It refuses requests at once while the circuit breaker is open and it reports
+ * outcome of every request to the breaker. Only transport errors and responses with a code meaning the server is
+ * throttling or temporarily failing (see [HttpResponseException.isThrottled]) count as failures, cancelled calls are
+ * not counted. The interceptor should be added as an application interceptor.
+ *
+ * Retries are made by [execute], so waiting for them suspends a coroutine instead of blocking a thread of the HTTP client.
+ * [cz.babi.gcunicorn.core.network.Network] uses it automatically if its client contains this interceptor. Only idempotent
+ * requests are retried, once they fail with [IOException] or once the server responds with a throttling code. Delay
+ * before every retry grows exponentially and it is randomized, so parallel requests do not retry at the same time. If the
+ * server sends `Retry-After` header, its value is used instead. A response asking to wait for more than [maxBackOff] is
+ * returned as it is.
+ *
+ * @param maxRetries Max count of retries of a request.
+ * @param backOff Delay in milliseconds used for the first retry.
+ * @param maxBackOff Max delay in milliseconds.
+ * @param circuitBreaker Circuit breaker of the server. Pass null if requests should not be paused.
+ * @param random Source of randomness of delays.
+ * @param metrics Metrics to count retries in, see [Metrics.HTTP_RETRIES]. Pass null if retries should not be counted.
+ * @since 3.1.0
+ */
+class RetryInterceptor(private val maxRetries: Int = DEFAULT_MAX_RETRIES, private val backOff: Long = DEFAULT_BACK_OFF, private val maxBackOff: Long = DEFAULT_MAX_BACK_OFF, private val circuitBreaker: CircuitBreaker? = null, private val random: Random = Random.Default, private val metrics: Metrics? = null) : Interceptor {
+
+    companion object {
+        private val LOG: Logger = logger<RetryInterceptor>()
+
+        const val DEFAULT_MAX_RETRIES = 3
+        const val DEFAULT_BACK_OFF = 1_000L
+        const val DEFAULT_MAX_BACK_OFF = 30_000L
+
+        private val IDEMPOTENT_METHODS = setOf("GET", "HEAD")
+
+        private const val REASON_IO = "io"
+        private const val REASON_THROTTLED = "throttled"
+    }
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        circuitBreaker?.acquire()
+
+        val response = try {
+            chain.proceed(chain.request())
+        } catch(e: IOException) {
+            if(chain.call().isCanceled()) {
+                circuitBreaker?.release()
+            } else {
+                circuitBreaker?.onFailure()
+            }
+            throw e
+        } catch(e: RuntimeException) {
+            circuitBreaker?.release()
+            throw e
+        }
+
+        if(HttpResponseException.isThrottled(response.code)) {
+            circuitBreaker?.onFailure(HttpResponseException.parseRetryAfter(response.header(HttpResponseException.HEADER_RETRY_AFTER)))
+        } else {
+            circuitBreaker?.onSuccess()
+        }
+
+        return response
+    }
+
+    /**
+     * Executes given request and retries it if it fails. Requests refused by the circuit breaker wait until it lets them
+     * through, but not longer than [CircuitBreaker.maxWait]. Waiting is cancelled together with the calling coroutine.
+     * @param request Request to execute.
+     * @param call Executes single attempt of the request.
+     * @return Response. It may be a throttling one if it has not been retried.
+     * @throws [IOException] If the last attempt fails or if the circuit breaker has not let the request through in time.
+     */
+    @Throws(IOException::class)
+    suspend fun execute(request: Request, call: suspend (Request) -> Response): Response {
+        val isRetryable = request.method in IDEMPOTENT_METHODS
+        var attempt = 0
+        var openDeadline: Long? = null
+
+        while(true) {
+            val response = try {
+                call(request)
+            } catch(e: CircuitBreaker.OpenException) {
+                val maxWait = circuitBreaker?.maxWait ?: throw e
+                val now = System.currentTimeMillis()
+                val deadline = openDeadline ?: (now + maxWait).also { openDeadline = it }
+                if(now >= deadline) {
+                    throw CircuitBreaker.OpenException("Server is failing, requests have been paused for more than $maxWait ms.", e.retryAfter)
+                }
+
+                delay(e.retryAfter.coerceIn(1, deadline - now))
+                continue
+            } catch(e: IOException) {
+                if(!isRetryable || attempt >= maxRetries) throw e
+
+                val delay = backOffDelay(attempt++, null)
+                LOG.warn("Request '{}' failed. It will be retried in {} ms.", request.url, delay, e)
+                countRetry(REASON_IO)
+                delay(delay)
+                continue
+            }
+
+            if(!HttpResponseException.isThrottled(response.code)) return response
+
+            val retryAfter = HttpResponseException.parseRetryAfter(response.header(HttpResponseException.HEADER_RETRY_AFTER))
+            if(!isRetryable || attempt >= maxRetries || (retryAfter!=null && retryAfter > maxBackOff)) return response
+
+            val delay = backOffDelay(attempt++, retryAfter)
+            LOG.warn("Server responded with code '{}' to request '{}'. It will be retried in {} ms.", response.code, request.url, delay)
+            response.close()
+            countRetry(REASON_THROTTLED)
+            delay(delay)
+        }
+    }
+
+    /**
+     * Computes delay before a retry. Exponential delay is randomized between its half and its full value.
+     * @param attempt Count of previous retries.
+     * @param retryAfter Delay the server asked for.
+     * @return Delay in milliseconds.
+     */
+    private fun backOffDelay(attempt: Int, retryAfter: Long?): Long {
+        if(retryAfter!=null) return retryAfter
+
+        val delay = (backOff shl attempt.coerceAtMost(30)).coerceIn(0, maxBackOff)
+        return delay / 2 + random.nextLong(delay / 2 + 1)
+    }
+
+    private fun countRetry(reason: String) {
+        metrics?.counter(Metrics.HTTP_RETRIES, "Retried HTTP requests.", "reason" to reason)?.increment()
+    }
+}
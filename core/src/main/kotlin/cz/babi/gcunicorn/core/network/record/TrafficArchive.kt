@@ -0,0 +1,155 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.record
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Archive of recorded HTTP exchanges stored in a file.
+ *
+ * Every exchange is appended as its own gzip member, so the file stays readable even if the process is killed while
+ * recording. The file starts with no header, each exchange carries [FORMAT_VERSION] instead.
+ *
+ * @param file File of the archive.
+ * @since 3.1.0
+ */
+class TrafficArchive(private val file: File) {
+
+    /**
+     * Recorded HTTP exchange. Credentials are scrubbed before the exchange is recorded.
+     *
+     * @param method Method of the request.
+     * @param url Url of the request.
+     * @param requestBody Body of the request or null if the request has no text body.
+     * @param code Code of the response.
+     * @param message Message of the response.
+     * @param headers Headers of the response.
+     * @param body Decoded body of the response.
+     * @param duration Time in milliseconds the exchange took.
+     */
+    class Exchange(
+            val method: String,
+            val url: String,
+            val requestBody: String?,
+            val code: Int,
+            val message: String,
+            val headers: List<Pair<String, String>>,
+            val body: ByteArray,
+            val duration: Long
+    )
+
+    companion object {
+        /** Version of the archive format. It has to be raised whenever the format changes. */
+        private const val FORMAT_VERSION = 1
+    }
+
+    /**
+     * Appends given exchange to the archive.
+     * @param exchange Exchange to append.
+     * @throws [IOException] If the file can not be written.
+     */
+    @Synchronized
+    @Throws(IOException::class)
+    fun append(exchange: Exchange) {
+        file.parentFile?.mkdirs()
+
+        DataOutputStream(GZIPOutputStream(BufferedOutputStream(FileOutputStream(file, true)))).use { output ->
+            output.writeInt(FORMAT_VERSION)
+            output.writeUTF(exchange.method)
+            output.writeString(exchange.url)
+            output.writeBoolean(exchange.requestBody!=null)
+            exchange.requestBody?.let { output.writeString(it) }
+            output.writeInt(exchange.code)
+            output.writeString(exchange.message)
+            output.writeInt(exchange.headers.size)
+            exchange.headers.forEach { (name, value) ->
+                output.writeString(name)
+                output.writeString(value)
+            }
+            output.writeInt(exchange.body.size)
+            output.write(exchange.body)
+            output.writeLong(exchange.duration)
+        }
+    }
+
+    /**
+     * Reads all exchanges of the archive in order they have been recorded. A damaged exchange at the end of the file is
+     * dropped.
+     * @return Recorded exchanges. The list is empty if the file does not exist.
+     * @throws [IOException] If the file can not be read or it contains an exchange of unsupported version.
+     */
+    @Synchronized
+    @Throws(IOException::class)
+    fun read(): List<Exchange> {
+        if(!file.exists()) return emptyList()
+
+        val exchanges = mutableListOf<Exchange>()
+
+        DataInputStream(GZIPInputStream(BufferedInputStream(FileInputStream(file)))).use { input ->
+            while(true) {
+                val version = try {
+                    input.readInt()
+                } catch(_: EOFException) {
+                    break
+                }
+                if(version!=FORMAT_VERSION) throw IOException("Unsupported version of recorded exchange: $version.")
+
+                try {
+                    exchanges += Exchange(
+                            input.readUTF(),
+                            input.readString(),
+                            if(input.readBoolean()) input.readString() else null,
+                            input.readInt(),
+                            input.readString(),
+                            List(input.readInt()) { input.readString() to input.readString() },
+                            ByteArray(input.readInt()).also { input.readFully(it) },
+                            input.readLong()
+                    )
+                } catch(_: EOFException) {
+                    // The last exchange has not been written completely.
+                    break
+                }
+            }
+        }
+
+        return exchanges
+    }
+
+    private fun DataOutputStream.writeString(value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        writeInt(bytes.size)
+        write(bytes)
+    }
+
+    private fun DataInputStream.readString(): String {
+        val bytes = ByteArray(readInt())
+        readFully(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+}
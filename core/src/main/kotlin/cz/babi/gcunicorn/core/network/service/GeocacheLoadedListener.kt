@@ -32,4 +32,12 @@ interface GeocacheLoadedListener {
      * @param geocache Loaded geocache.
      */
     fun geocacheLoaded(geocache: Geocache)
+
+    /**
+     * Geocache has been skipped, because its details could not be loaded even after retries. The search continues with other geocaches.
+     * @param code Code of skipped geocache. Null if it is not known.
+     * @param reason Failure of the last attempt to load the geocache.
+     * @since 3.1.0
+     */
+    fun geocacheSkipped(code: String?, reason: Throwable) {}
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import java.io.IOException
+
+/**
+ * Writer emitting GPX document geocache by geocache.
+ *
+ * Header of the document is written once the writer is created, so every geocache is written to the underlying output
+ * as soon as it is passed to [write]. The writer is not thread safe.
+ *
+ * @since 3.1.0
+ */
+interface GpxWriter {
+
+    /**
+     * Writes given geocache together with its waypoints. Geocaches without coordinates are skipped.
+     * @param geocache Geocache to write.
+     * @throws [IOException] If the underlying output can not be written.
+     * @throws [IllegalStateException] If the document has been already finished.
+     */
+    @Throws(IOException::class, IllegalStateException::class)
+    fun write(geocache: Geocache)
+
+    /**
+     * Writes end of the document. The underlying output is neither flushed nor closed.
+     * @throws [IOException] If the underlying output can not be written.
+     * @throws [IllegalStateException] If the document has been already finished.
+     */
+    @Throws(IOException::class, IllegalStateException::class)
+    fun finish()
+}
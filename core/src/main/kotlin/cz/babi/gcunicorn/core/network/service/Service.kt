@@ -23,8 +23,10 @@ import cz.babi.gcunicorn.core.exception.network.LogoutException
 import cz.babi.gcunicorn.core.exception.network.ServiceException
 import cz.babi.gcunicorn.core.location.Coordinates
 import cz.babi.gcunicorn.core.network.model.Credentials
+import cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint.SearchCheckpoint
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheFilter
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import java.io.IOException
 
 /**
  * Service interface providing basic set of methods required for grabbing geocaches.
@@ -33,6 +35,11 @@ import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
  */
 interface Service {
 
+    /**
+     * Configuration of the service. New configuration is used by subsequent operations.
+     */
+    var configuration: ServiceConfiguration
+
     /**
      * Log in with given credentials. If login was successful, it returns nothing. Otherwise it throws an exception.
      * @param credentials Credentials to log in with.
@@ -61,12 +68,13 @@ interface Service {
      * @param cacheFilter Filter used while looking for caches.
      * @param limit Max count of caches to look for.
      * @param geocacheLoadedListener Listener that will be notified every time a geocache is fully loaded.
+     * @param checkpoint Checkpoint the search is resumed from and its progress is stored into. The checkpoint is closed once the search ends, but it is not deleted. Pass null if the progress should not be stored.
      * @return List of found caches.
      * @throws [ServiceException] If anything goes wrong.
      * @see [CacheFilter]
      */
     @Throws(ServiceException::class)
-    suspend fun lookForCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, geocacheLoadedListener: GeocacheLoadedListener?): List<Geocache>
+    suspend fun lookForCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, geocacheLoadedListener: GeocacheLoadedListener?, checkpoint: SearchCheckpoint? = null): List<Geocache>
 
     /**
      * Creates GPX file of given geocaches.
@@ -78,6 +86,37 @@ interface Service {
      * @param geocaches Geocaches to be included in output GPX.
      * @param formatOutput Pass true if the GPX output should be formatted. Otherwise pass false.
      * @return String representation of created GPX file.
+     * @see createGpxWriter
+     */
+    suspend fun createGpx(geocaches: List<Geocache>, formatOutput: Boolean): String = StringBuilder().also { createGpx(geocaches, formatOutput, it) }.toString()
+
+    /**
+     * Writes GPX file of given geocaches to given output. Every geocache is written as soon as it is processed,
+     * so the whole document is never held in memory.
+     *
+     * @param geocaches Geocaches to be included in output GPX.
+     * @param formatOutput Pass true if the GPX output should be formatted. Otherwise pass false.
+     * @param output Output to write GPX file to. It is neither flushed nor closed.
+     * @throws [IOException] If the output can not be written.
+     * @see createGpxWriter
+     */
+    @Throws(IOException::class)
+    suspend fun createGpx(geocaches: List<Geocache>, formatOutput: Boolean, output: Appendable) {
+        createGpxWriter(output, formatOutput).apply {
+            geocaches.forEach { write(it) }
+            finish()
+        }
+    }
+
+    /**
+     * Creates writer emitting GPX file to given output geocache by geocache. It uses the same namespaces as [createGpx].
+     * Header of the GPX file is written immediately.
+     *
+     * @param output Output to write GPX file to.
+     * @param formatOutput Pass true if the GPX output should be formatted. Otherwise pass false.
+     * @return GPX writer.
+     * @throws [IOException] If the output can not be written.
      */
-    suspend fun createGpx(geocaches: List<Geocache>, formatOutput: Boolean): String
+    @Throws(IOException::class)
+    fun createGpxWriter(output: Appendable, formatOutput: Boolean): GpxWriter
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cz.babi.gcunicorn.core.network.service
+
+/**
+ * Configuration of a [Service].
+ *
+ * @param detailParallelism Max count of concurrent requests made while downloading geocaches' details, so also max count of geocaches whose pages are downloaded at once.
+ * @param detailCacheTtl Time in milliseconds a cached geocache is used for without asking geocaching.com whether it has changed.
+ * @param detailRetries Count of retries of a geocache whose details can not be loaded. The geocache is skipped once all of them fail.
+ * @param logDepth Max count of the latest log entries loaded for a geocache. Pass 0 if no log entries should be loaded.
+ * @throws [IllegalArgumentException] If any value is out of its range.
+ * @since 3.1.0
+ */
+data class ServiceConfiguration(
+        val detailParallelism: Int = DEFAULT_DETAIL_PARALLELISM,
+        val detailCacheTtl: Long = DEFAULT_DETAIL_CACHE_TTL,
+        val detailRetries: Int = DEFAULT_DETAIL_RETRIES,
+        val logDepth: Int = DEFAULT_LOG_DEPTH
+) {
+    companion object {
+        const val DEFAULT_DETAIL_PARALLELISM = 4
+        const val DEFAULT_DETAIL_CACHE_TTL = 60L * 60 * 1000
+        const val DEFAULT_DETAIL_RETRIES = 2
+        const val DEFAULT_LOG_DEPTH = 35
+    }
+
+    init {
+        require(detailParallelism > 0) { "Detail parallelism has to be positive number." }
+        require(detailCacheTtl >= 0) { "Detail cache TTL can not be negative number." }
+        require(detailRetries >= 0) { "Detail retries can not be negative number." }
+        require(logDepth >= 0) { "Log depth can not be negative number." }
+    }
+}
@@ -25,15 +25,23 @@ import cz.babi.gcunicorn.core.exception.network.NetworkException
 import cz.babi.gcunicorn.core.exception.network.ServiceException
 import cz.babi.gcunicorn.core.location.Coordinates
 import cz.babi.gcunicorn.core.location.parser.Parser
+import cz.babi.gcunicorn.core.metrics.Metrics
 import cz.babi.gcunicorn.core.network.Network
+import cz.babi.gcunicorn.core.network.RequestThrottle
+import cz.babi.gcunicorn.core.network.model.CacheValidators
 import cz.babi.gcunicorn.core.network.model.Credentials
 import cz.babi.gcunicorn.core.network.model.HttpParameters
 import cz.babi.gcunicorn.core.network.model.Image
 import cz.babi.gcunicorn.core.network.service.GeocacheLoadedListener
+import cz.babi.gcunicorn.core.network.service.GpxWriter
 import cz.babi.gcunicorn.core.network.service.Service
+import cz.babi.gcunicorn.core.network.service.ServiceConfiguration
 import cz.babi.gcunicorn.core.network.service.geocachingcom.Constant.PATTERN_DATE_ISO
 import cz.babi.gcunicorn.core.network.service.geocachingcom.Constant.PATTERN_DATE_PAGE
-import cz.babi.gcunicorn.core.network.service.geocachingcom.Constant.REGEX_KNOWN_INVALID_XML_CHARS
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.GeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.TrackableCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint.SearchCheckpoint
+import cz.babi.gcunicorn.core.network.service.geocachingcom.gpx.GroundspeakGpxWriter
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Attribute
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.AttributeType
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheFilter
@@ -41,30 +49,42 @@ import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheSizeType
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheType
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheLite
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheSection
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogEntry
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogType
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Trackable
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.TrackableBrand
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Waypoint
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.WaypointType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.GeocachePage
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.MeteredGeocachePage
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.PageExtractor
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.PageField
 import cz.babi.gcunicorn.`fun`.*
-import kotlinx.coroutines.Deferred
-import kotlinx.coroutines.Job
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.supervisorScope
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
 import kotlinx.serialization.SerialName
 import kotlinx.serialization.Serializable
+import kotlinx.serialization.SerializationException
 import kotlinx.serialization.json.Json
-import kotlinx.serialization.json.JsonObject
-import kotlinx.serialization.json.contentOrNull
-import kotlinx.serialization.json.jsonArray
-import kotlinx.serialization.json.jsonObject
-import kotlinx.serialization.json.jsonPrimitive
-import kotlinx.serialization.json.longOrNull
-import org.redundent.kotlin.xml.xml
 import org.slf4j.Logger
+import java.io.IOException
 import java.text.ParseException
 import java.text.SimpleDateFormat
 import java.util.*
@@ -73,18 +93,40 @@ import java.util.regex.Pattern
 /**
  * Service implementation for Groundspeak's geocaching.com web page.
  *
- * @param network Network. It is used for communication with external sites.
+ * @param network Network. It is used for communication with external sites. Its client should retry failed requests, see [cz.babi.gcunicorn.core.network.interceptor.RetryInterceptor].
  * @param parser Coordination parser. Parse used for parsing geocaches' coordinates.
  * @param json Json parser.
  * @param gcWebApi Groundspeak's WEB API.
+ * @param configuration Initial configuration of the service.
+ * @param pageExtractor Extractor used for parsing geocaches' detail pages.
+ * @param geocacheCache Cache of fully loaded geocaches. Pass null if geocaches should be always downloaded.
+ * @param trackableCache Cache of trackables' details. It should be shared by all services of the process.
+ * @param ioDispatcher Dispatcher blocking IO, like reading of pages and storing of caches, is done on.
+ * @param metrics Metrics to record duration of search's stages and misses of parsed fields in.
  * @since 1.0.0
  */
-class GeoCachingCom(private val network: Network, private val parser: Parser, private val json: Json, private val gcWebApi: GCWebApi) : Service {
+class GeoCachingCom(private val network: Network, private val parser: Parser, private val json: Json, private val gcWebApi: GCWebApi, configuration: ServiceConfiguration = ServiceConfiguration(), private val pageExtractor: PageExtractor = PageExtractor.STREAM, private val geocacheCache: GeocacheCache? = null, private val trackableCache: TrackableCache = TrackableCache(), private val ioDispatcher: CoroutineDispatcher = Dispatchers.IO, private val metrics: Metrics = Metrics()) : Service {
 
     companion object {
         private val LOG: Logger = logger<GeoCachingCom>()
+
+        /** Delay in milliseconds before the first retry of loading a geocache. It grows with every next retry. */
+        private const val DETAIL_RETRY_DELAY = 2_000L
     }
 
+    /** Throttle shared by all requests made while downloading geocaches' details. It is the only limit of loaded geocaches, no geocache waits for a retry while holding its slot. Throttled requests are retried by the client, the throttle only lowers the parallelism. */
+    private val throttle = RequestThrottle(configuration.detailParallelism, maxRetries = 0)
+
+    override var configuration = configuration
+        set(value) {
+            field = value
+            throttle.maxParallelism = value.detailParallelism
+        }
+
+    /** Name of the last user logging in. Cached geocaches contain user's data, so they are cached for each user separately. */
+    @Volatile
+    private var username: String? = null
+
     /**
      * After the user has been logged in successfully, it switches language of Geocaching page to English.
      * @param credentials Credentials to log in with.
@@ -94,6 +136,8 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
     override suspend fun login(credentials: Credentials) {
         LOG.debug("Starting log-in process..")
 
+        username = credentials.username
+
         try {
             val loginPageBody = network.getResponseStringBody(network.getRequest(Constant.URI_LOGIN))
 
@@ -150,382 +194,214 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
 
     override fun isLoggedIn(pageBody: String) = Constant.REGEX_IS_LOGGED_IN.containsMatchIn(pageBody)
 
-    override suspend fun lookForCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, geocacheLoadedListener: GeocacheLoadedListener?): List<Geocache> = coroutineScope {
+    override suspend fun lookForCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, geocacheLoadedListener: GeocacheLoadedListener?, checkpoint: SearchCheckpoint?): List<Geocache> = coroutineScope {
         LOG.debug("Starting looking for caches..")
+        checkpoint?.let { LOG.debug("The search is resumed from checkpoint with '{}' loaded caches.", it.geocacheCount) }
         // In case disabled caches are not allowed and the next loaded batch contains disabled ones only, we need to stop the recursion. By this parameter we say how many empty recursions are allowed.
         val maxRecursionCount = 3
 
-        lookForFullCaches(coordinates, cacheFilter, limit, 0,  geocacheLoadedListener, maxRecursionCount, 0)
-    }
-
-    override suspend fun createGpx(geocaches: List<Geocache>, formatOutput: Boolean): String {
-        val nsGroundspeak = "groundspeak" to "http://www.groundspeak.com/cache/1/0/1"
-        val nsGsak = "gsak" to "http://www.gsak.net/xmlv1/6"
-
-        val gpx = xml("gpx") {
-            attributes("version" to "1.1", "creator" to "gcUnicorn")
-            xmlns = "http://www.topografix.com/GPX/1/1"
-            namespace(nsGroundspeak.first, nsGroundspeak.second)
-            namespace(nsGsak.first, nsGsak.second)
-
-            element("metadata") {
-                element("author") { -"gcUnicorn"}
-                element("time") { -Date().format(Constant.PATTERN_DATE_GPX, Locale.US) }
-            }
-
-            geocaches.forEach { geocache->
-                if(geocache.coordinates==null) return@forEach
-
-                element("wpt") {
-                    attributes(
-                            "lat" to geocache.coordinates!!.latitude.toString(),
-                            "lon" to geocache.coordinates!!.longitude.toString())
-                    geocache.hiddenDate?.let {
-                        element("time") { -Date(it).format(Constant.PATTERN_DATE_GPX, Locale.US) }
-                    }
-                    geocache.code?.let {
-                        element("name") { -it }
-                    }
-                    geocache.name?.let {
-                        element("desc") { -it }
-                    }
-                    // Link is created from geocache's code.
-                    geocache.code?.let {
-                        element("link") {
-                            element("href") { -Constant.URI_CACHE_SHORT.plus(it) }
-                            geocache.name?.let {
-                                element("text") { -it }
-                            }
-                        }
-                    }
-                    geocache.found?.let {
-                        element("sym") { if(it) -"Geocache Found" else -"Geocache" }
-                    }
-                    geocache.type?.let {
-                        element("type") { -"Geocache|${it.id}" }
-                    }
-                    element("${nsGroundspeak.first}:cache") {
-                        geocache.id?.let { attribute("id", it) }
-                        geocache.isDisabled?.let { attribute("available", !it) }
-                        geocache.isArchived?.let { attribute("archived", it) }
-
-                        geocache.name?.let {
-                            element("${nsGroundspeak.first}:name") { -it }
-                        }
-                        geocache.ownerName?.let {
-                            element("${nsGroundspeak.first}:placed_by") { -it }
-                        }
-                        geocache.ownerId?.let {
-                            element("${nsGroundspeak.first}:owner") { -it }
-                        }
-                        geocache.type?.let {
-                            element("${nsGroundspeak.first}:type") { -it.id }
-                        }
-                        geocache.sizeType?.let {
-                            element("${nsGroundspeak.first}:container") { -it.id }
-                        }
-                        geocache.attributes?.let {
-                            element("${nsGroundspeak.first}:attributes") {
-                                it.forEach { attribute ->
-                                    element("${nsGroundspeak.first}:attribute") {
-                                        attributes("id" to attribute.type.id, "inc" to if(attribute.enabled) "1" else "0")
-                                    }
-                                }
-                            }
-                        }
-                        geocache.difficulty?.let {
-                            element("${nsGroundspeak.first}:difficulty") { -it.toString() }
-                        }
-                        geocache.terrain?.let {
-                            element("${nsGroundspeak.first}:terrain") { -it.toString() }
-                        }
-                        geocache.getCountry()?.let {
-                            element("${nsGroundspeak.first}:country") { -it }
-                        }
-                        geocache.getState()?.let {
-                            element("${nsGroundspeak.first}:state") { -it }
-                        }
-                        geocache.shortDescription?.let {
-                            element("${nsGroundspeak.first}:short_description") {
-                                attribute("html", if(it.containsHtml()) "true" else "false")
-                                -it
-                            }
-                        }
-                        geocache.longDescription?.let {
-                            element("${nsGroundspeak.first}:long_description") {
-                                attribute("html", if(it.containsHtml()) "true" else "false")
-                                -it
-                            }
-                        }
-                        geocache.hint?.let {
-                            element("${nsGroundspeak.first}:encoded_hints") { -it.rot13() }
-                        }
-                        geocache.logEntries?.let {
-                            element("${nsGroundspeak.first}:logs") {
-                                it.forEach { logEntry ->
-                                    element("${nsGroundspeak.first}:log") {
-                                        logEntry.id?.let {
-                                            attribute("id", it.toString())
-                                        }
-                                        logEntry.visited?.let {
-                                            element("${nsGroundspeak.first}:date") {
-                                                -Date(it).format(Constant.PATTERN_DATE_GPX, Locale.US)
-                                            }
-                                        }
-                                        logEntry.type?.let {
-                                            element("${nsGroundspeak.first}:type") { -it.type }
-                                        }
-                                        logEntry.author?.let {
-                                            element("${nsGroundspeak.first}:finder") {
-                                                logEntry.authorId?.let {
-                                                    attribute("id", it.toString())
-                                                }
-                                                -it
-                                            }
-                                        }
-                                        logEntry.text?.let {
-                                            element("${nsGroundspeak.first}:text") {
-                                                attribute("encoded", "False")
-                                                -it
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                        geocache.inventory?.let {
-                            element("${nsGroundspeak.first}:travelbugs") {
-                                it.forEach { trackable ->
-                                    element("${nsGroundspeak.first}:travelbug") {
-                                        trackable.id?.let {
-                                            attribute("id", it)
-                                        }
-                                        trackable.code?.let {
-                                            attribute("ref", it)
-                                        }
-                                        trackable.name?.let {
-                                            element("${nsGroundspeak.first}:name") { -it }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    element("${nsGsak.first}:wptExtension") {
-                        geocache.onWatchList?.let {
-                            element("${nsGsak.first}:Watch") { -it.toString() }
-                        }
-                        geocache.found?.let {
-                            element("${nsGsak.first}:Found") { -it.toString() }
-                        }
-                        geocache.isPremiumOnly?.let {
-                            element("${nsGsak.first}:IsPremium") { -it.toString() }
-                        }
-                        geocache.favoriteCount?.let {
-                            element("${nsGsak.first}:FavPoints") { -it.toString() }
-                        }
-                        geocache.personalNote?.let {
-                            element("${nsGsak.first}:GcNote") { -it }
-                        }
-                        geocache.guid?.let {
-                            element("${nsGsak.first}:Guid") { -it }
-                        }
-                        geocache.spoilers?.let {
-                            element("${nsGsak.first}:CacheImages") {
-                                it.forEach { image ->
-                                    element("${nsGsak.first}:CacheImage") {
-                                        image.title?.let {
-                                            element("${nsGsak.first}:iname") { -it }
-                                        }
-                                        image.description?.let {
-                                            element("${nsGsak.first}:idescription") { -it }
-                                        }
-                                        image.guid?.let {
-                                            element("${nsGsak.first}:iguid") { -it }
-                                        }
-                                        element("${nsGsak.first}:iimage") { -image.uri }
-                                    }
-                                }
-                            }
-                        }
-                        geocache.logEntries?.let { logEntries ->
-                            if(logEntries.any { logEntry -> logEntry.images != null }) {
-                                element("${nsGsak.first}:LogImages") {
-                                    logEntries.forEach logEntry@ { logEntry ->
-                                        if (logEntry.id == null) return@logEntry
-                                        logEntry.images?.let {
-                                            it.forEach { logImage ->
-                                                element("${nsGsak.first}:LogImage") {
-                                                    element("${nsGsak.first}:ilogid") {
-                                                        -logEntry.id.toString()
-                                                    }
-                                                    logImage.title?.let {
-                                                        element("${nsGsak.first}:iname") { -it }
-                                                    }
-                                                    logImage.description?.let {
-                                                        element("${nsGsak.first}:idescription") { -it }
-                                                    }
-                                                    logImage.guid?.let {
-                                                        element("${nsGsak.first}:iguid") { -it }
-                                                    }
-                                                    element("${nsGsak.first}:iimage") {
-                                                        -logImage.uri
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-                geocache.waypoints?.let {
-                    it.forEach waypoint@ { waypoint ->
-                        if(geocache.code==null) return@waypoint
-
-                        element("wpt") {
-                            waypoint.coordinates?.let {it ->
-                                attributes("lat" to it.latitude, "lon" to it.longitude)
-                            }
-                            waypoint.prefix?.let {
-                                element("name") { -(it + geocache.code?.substring(2)) }
-                            }
-                            waypoint.note?.let {
-                                element("cmt") { -it }
-                            }
-                            waypoint.name?.let {
-                                element("desc") { -it }
-                            }
-                            waypoint.type?.let {
-                                element("sym") { -it.type }
-                                element("type") { -"Waypoint|${it.type}" }
-                            }
-                            element("${nsGsak.first}:wptExtension") {
-                                element("${nsGsak.first}:Parent") {
-                                    -geocache.code!!
-                                }
-                            }
-                        }
-                    }
-                }
+        try {
+            lookForFullCaches(coordinates, cacheFilter, limit, 0,  geocacheLoadedListener, checkpoint, maxRecursionCount, 0)
+        } finally {
+            withContext(ioDispatcher) {
+                trackableCache.save()
+                checkpoint?.close()
             }
         }
-
-        return gpx.toString(formatOutput).replace(REGEX_KNOWN_INVALID_XML_CHARS, "")
     }
 
-    private suspend fun lookForFullCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, skip: Int, geocacheLoadedListener: GeocacheLoadedListener?, maxRecursionCount: Int, currentEmptyRecursionCount: Int): List<Geocache> = coroutineScope {
+    override fun createGpxWriter(output: Appendable, formatOutput: Boolean): GpxWriter = GroundspeakGpxWriter(output, formatOutput)
+
+    private suspend fun lookForFullCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, skip: Int, geocacheLoadedListener: GeocacheLoadedListener?, checkpoint: SearchCheckpoint?, maxRecursionCount: Int, currentEmptyRecursionCount: Int): List<Geocache> = coroutineScope {
         val jobStartTime = System.currentTimeMillis()
 
         LOG.debug("Start looking for full caches with following parameters: limit={}, skip={}, maxRecursionCount={}, currentEmptyRecursionCount={}.", limit, skip, maxRecursionCount, currentEmptyRecursionCount)
 
         val geoCaches = mutableListOf<Geocache>()
 
-        val parentJob = Job()
+        var skippedCount = 0
+        var disabledCount = 0
         try {
-            val liteCaches = lookForLiteCaches(coordinates, cacheFilter, limit, skip)
-
-            val jobs: MutableList<Deferred<Geocache>> = mutableListOf()
-            liteCaches.first.forEach { gcLite ->
-                jobs.add(
-                    async(context = parentJob) {
-                        loadGeocacheDetails(gcLite)
+            val nextSkip = CompletableDeferred<Int>()
+
+            // Details are loaded while the search is still paging through results. Caches are loaded in the order of lite caches, but only a few of them at once, see the throttle.
+            // Failure of one cache must not cancel loading of other ones.
+            supervisorScope {
+                lookForLiteCaches(coordinates, cacheFilter, limit, skip, checkpoint, nextSkip)
+                    .map { gcLite ->
+                        async {
+                            loadGeocacheDetailsWithRetries(gcLite, cacheFilter.sections, checkpoint)
+                        }
                     }
-                )
-            }
-
-            jobs.forEach { job ->
-                val geocache = job.await()
-                geoCaches.add(geocache)
+                    .buffer(Channel.UNLIMITED)
+                    .collect { job ->
+                        val (gcLite, result) = job.await()
+                        result.onSuccess { geocache ->
+                            // The listener gets exactly the caches which end up in the result, disabled ones are replaced by the next batch.
+                            if(!cacheFilter.allowDisabled && true == geocache.isDisabled) {
+                                disabledCount++
+                            } else if(geoCaches.size < limit) {
+                                geoCaches.add(geocache)
+
+                                geocacheLoadedListener?.geocacheLoaded(geocache)
+                            }
+                        }.onFailure { e ->
+                            skippedCount++
+                            LOG.warn("Cache '{}' is skipped, its details can not be loaded.", gcLite.code, e)
 
-                geocacheLoadedListener?.geocacheLoaded(geocache)
+                            geocacheLoadedListener?.geocacheSkipped(gcLite.code, e)
+                        }
+                    }
             }
 
-            if (!cacheFilter.allowDisabled) {
-                // At this point we know whether there are any disabled caches or not so we can try to load new ones.
-                val disabledOnes = geoCaches.filter { geocache -> true == geocache.isDisabled }.toList()
-
-                if (disabledOnes.isNotEmpty()) {
-                    LOG.debug("There are '{}' disabled cache(s) from '{}' fully loaded ones.", disabledOnes.size, geoCaches.size)
-
-                    geoCaches.removeAll(disabledOnes)
+            // At this point we know whether there are any disabled caches or not so we can try to load new ones.
+            if (disabledCount > 0 && geoCaches.size < limit) {
+                LOG.debug("There are '{}' disabled cache(s) from '{}' fully loaded ones.", disabledCount, disabledCount + geoCaches.size)
 
-                    val nextEmptyRecursionCount = if (geoCaches.size == 0) {
-                        currentEmptyRecursionCount + 1
-                    } else {
-                        currentEmptyRecursionCount
-                    }
+                val nextEmptyRecursionCount = if (geoCaches.size == 0) {
+                    currentEmptyRecursionCount + 1
+                } else {
+                    currentEmptyRecursionCount
+                }
 
-                    if (nextEmptyRecursionCount < maxRecursionCount) {
-                        geoCaches.addAll(lookForFullCaches(coordinates, cacheFilter, limit - geoCaches.size, liteCaches.second, geocacheLoadedListener, maxRecursionCount, nextEmptyRecursionCount))
-                    }
+                if (nextEmptyRecursionCount < maxRecursionCount) {
+                    geoCaches.addAll(lookForFullCaches(coordinates, cacheFilter, limit - geoCaches.size, nextSkip.await(), geocacheLoadedListener, checkpoint, maxRecursionCount, nextEmptyRecursionCount))
                 }
             }
         } catch (e: Exception) {
-            parentJob.cancel()
             LOG.error("Can not download caches. The process took: {} ms", System.currentTimeMillis() - jobStartTime, e)
             throw ServiceException("Can not download caches.", e)
         }
 
-        LOG.debug("'{}' caches grabbed in: {} ms.", geoCaches.size, System.currentTimeMillis() - jobStartTime)
+        LOG.debug("'{}' caches grabbed and '{}' skipped in: {} ms.", geoCaches.size, skippedCount, System.currentTimeMillis() - jobStartTime)
 
         geoCaches
     }
 
     /**
-     * It uses Web Api to look for caches.
+     * Loads details of given geocache. Failed loading is retried [ServiceConfiguration.detailRetries] times, so a single
+     * bad page does not fail the whole search.
+     * @param geocacheLite Geocache to load details for.
+     * @param sections Sections of geocache's details to load.
+     * @param checkpoint Checkpoint of the search. Geocache stored in it is not loaded again, loaded geocache is stored into it.
+     * @return Given geocache together with loaded geocache or with failure of the last attempt.
+     */
+    private suspend fun loadGeocacheDetailsWithRetries(geocacheLite: GeocacheLite, sections: Set<GeocacheSection>, checkpoint: SearchCheckpoint?): Pair<GeocacheLite, Result<Geocache>> {
+        geocacheLite.code?.let { checkpoint?.getGeocache(it) }?.let { return geocacheLite to Result.success(it) }
+
+        var attempt = 0
+        while(true) {
+            val geocache = try {
+                loadGeocacheDetails(geocacheLite, sections)
+            } catch(e: CancellationException) {
+                throw e
+            } catch(e: Exception) {
+                if(attempt++ >= configuration.detailRetries) return geocacheLite to Result.failure(e)
+
+                LOG.debug("Can not load details of '{}', attempt '{}' failed. It will be retried.", geocacheLite.code, attempt, e)
+                delay(DETAIL_RETRY_DELAY * attempt)
+                continue
+            }
+
+            // The geocache is loaded already, failure of the checkpoint must not make it loaded again.
+            checkpoint?.let {
+                try {
+                    withContext(ioDispatcher) { it.geocacheLoaded(geocache) }
+                } catch(e: CancellationException) {
+                    throw e
+                } catch(e: Exception) {
+                    LOG.warn("Can not store cache '{}' into the checkpoint.", geocacheLite.code, e)
+                }
+            }
+
+            return geocacheLite to Result.success(geocache)
+        }
+    }
+
+    /**
+     * It uses Web Api to look for caches. Every page of search results is emitted as soon as it is loaded, so the caches
+     * can be processed while next pages are being loaded.
+     * @param checkpoint Checkpoint of the search. Paging continues from the state stored in it and every loaded page is stored into it.
+     * @param nextSkip Completed with count of results to skip by the next search once all pages are loaded.
      * @return Lite version of caches.
      * @since 3.0.0
      */
-    private suspend fun lookForLiteCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, skip: Int): Pair<Set<GeocacheLite>, Int> {
-        val acceptableCaches = mutableSetOf<GeocacheLite>()
-
-        // Prepare basic set of parameters.
-        val httpParameters = HttpParameters(
-            GCWebApi.Parameter.ORIGIN.parameterName, "${coordinates.latitude},${coordinates.longitude}",
-            // Premium members only.
-            GCWebApi.Parameter.STATUS_DISABLED.parameterName, if (cacheFilter.allowDisabled) "1" else "0"
-        )
+    private fun lookForLiteCaches(coordinates: Coordinates, cacheFilter: CacheFilter, limit: Int, skip: Int, checkpoint: SearchCheckpoint?, nextSkip: CompletableDeferred<Int>): Flow<GeocacheLite> = flow {
+        val emittedCaches = mutableSetOf<GeocacheLite>()
+        var pageLimit = limit
+        var pageSkip = skip
+        var skipped = 0
 
-        if (cacheFilter.allowedCacheTypes.isNotEmpty() && !cacheFilter.allowedCacheTypes.contains(CacheType.ALL)) {
-            httpParameters.put(GCWebApi.Parameter.CACHE_TYPE.parameterName, cacheFilter.allowedCacheTypes[0].wptTypeId)
-        }
+        checkpoint?.getPagingState(skip)?.let { state ->
+            LOG.debug("Paging from '{}' is resumed from checkpoint with '{}' caches.", skip, state.caches.size)
 
-        if (cacheFilter.excludeOwn) {
-            httpParameters.put(GCWebApi.Parameter.EXCLUDE_OWN.parameterName, "1")
-        }
-        if (cacheFilter.excludeFound) {
-            httpParameters.put(GCWebApi.Parameter.EXCLUDE_FOUND.parameterName, "1")
+            state.caches.forEach { gcLite ->
+                if (emittedCaches.add(gcLite)) emit(gcLite)
+            }
+
+            if (state.finished) {
+                nextSkip.complete(state.skipped)
+                return@flow
+            }
+
+            pageLimit = state.pageLimit
+            pageSkip = state.pageSkip
+            skipped = state.skipped
         }
 
-        httpParameters.put(GCWebApi.Parameter.TAKE.parameterName, limit.toString())
-        httpParameters.put(GCWebApi.Parameter.SKIP.parameterName, skip.toString())
-        httpParameters.put(GCWebApi.Parameter.SORT.parameterName, "distance")
-        httpParameters.put(GCWebApi.Parameter.ASC.parameterName, true.toString())
+        while(true) {
+            // Prepare basic set of parameters.
+            val httpParameters = HttpParameters(
+                GCWebApi.Parameter.ORIGIN.parameterName, "${coordinates.latitude},${coordinates.longitude}",
+                // Premium members only.
+                GCWebApi.Parameter.STATUS_DISABLED.parameterName, if (cacheFilter.allowDisabled) "1" else "0"
+            )
 
-        val searchResult = gcWebApi.getRequest(GCWebApi.URL_SEARCH, httpParameters)
+            if (cacheFilter.allowedCacheTypes.isNotEmpty() && !cacheFilter.allowedCacheTypes.contains(CacheType.ALL)) {
+                httpParameters.put(GCWebApi.Parameter.CACHE_TYPE.parameterName, cacheFilter.allowedCacheTypes[0].wptTypeId)
+            }
 
-        searchResult.geoCaches.forEach { gc ->
-            if (isCacheAcceptable(gc, cacheFilter)) {
-                acceptableCaches.add(GeocacheLite(gc.id.toLong(), gc.name, gc.code, "${GCWebApi.URL_CACHE}${gc.code}", gc.premiumOnly))
+            if (cacheFilter.excludeOwn) {
+                httpParameters.put(GCWebApi.Parameter.EXCLUDE_OWN.parameterName, "1")
+            }
+            if (cacheFilter.excludeFound) {
+                httpParameters.put(GCWebApi.Parameter.EXCLUDE_FOUND.parameterName, "1")
             }
-        }
 
-        if (acceptableCaches.isEmpty() && (searchResult.geoCaches.isEmpty() || isOutOfDistance(searchResult.geoCaches.last().distance, cacheFilter.maxDistance))) {
-            // We are out of the filter.
-            return acceptableCaches to limit + skip
-        }
+            httpParameters.put(GCWebApi.Parameter.TAKE.parameterName, pageLimit.toString())
+            httpParameters.put(GCWebApi.Parameter.SKIP.parameterName, pageSkip.toString())
+            httpParameters.put(GCWebApi.Parameter.SORT.parameterName, "distance")
+            httpParameters.put(GCWebApi.Parameter.ASC.parameterName, true.toString())
+
+            val searchResult = metrics.stage(Metrics.Stage.LITE_SEARCH).time { gcWebApi.getRequest(GCWebApi.URL_SEARCH, httpParameters) }
+
+            val acceptableCaches = mutableSetOf<GeocacheLite>()
+            searchResult.geoCaches.forEach { gc ->
+                if (isCacheAcceptable(gc, cacheFilter)) {
+                    acceptableCaches.add(GeocacheLite(gc.id.toLong(), gc.name, gc.code, "${GCWebApi.URL_CACHE}${gc.code}", gc.premiumOnly))
+                }
+            }
 
-        var possibleNextSearch = 0
-        if (acceptableCaches.size < limit) {
-            // We can still look for some other caches.
-            val nextSearch = lookForLiteCaches(coordinates, cacheFilter, limit - acceptableCaches.size, limit + skip)
-            acceptableCaches.addAll(nextSearch.first)
-            possibleNextSearch = nextSearch.second
+            val newCaches = acceptableCaches.filter { emittedCaches.add(it) }
+            newCaches.forEach { emit(it) }
+            skipped += pageLimit + pageSkip
+
+            // Either we are out of the filter or we have enough caches.
+            val finished = (acceptableCaches.isEmpty() && (searchResult.geoCaches.isEmpty() || isOutOfDistance(searchResult.geoCaches.last().distance, cacheFilter.maxDistance)))
+                    || acceptableCaches.size >= pageLimit
+
+            if (!finished) {
+                // We can still look for some other caches.
+                pageSkip += pageLimit
+                pageLimit -= acceptableCaches.size
+            }
+
+            checkpoint?.let { withContext(ioDispatcher) { it.pageLoaded(skip, pageLimit, pageSkip, skipped, finished, newCaches) } }
+
+            if (finished) break
         }
 
-        return acceptableCaches to limit + skip + possibleNextSearch
+        nextSkip.complete(skipped)
     }
 
     private fun isCacheAcceptable(gcLite: GCWebApi.GeocacheLite, cacheFilter: CacheFilter): Boolean {
@@ -551,21 +427,47 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
      * Skipped content:
      * * Background image
      *
+     * Fresh geocaches are taken from [geocacheCache]. Expired ones are revalidated by a conditional request, so their page
+     * is downloaded and parsed only if it has changed. Cached geocaches loaded without some of requested sections are
+     * loaded again.
+     *
+     * Sections which are neither requested nor cached already are neither parsed nor downloaded by sub-requests. Cached
+     * sections are loaded again together with requested ones, so a search with fewer sections does not replace a richer
+     * cache entry by a poorer one.
+     *
      * @param geocacheLite Geocache to load details for.
+     * @param sections Sections of geocache's details to load.
      * @return Loaded geocache.
      * @throws [NetworkException] If a page with geocache details can't be loaded.
      */
     @Throws(NetworkException::class)
-    private suspend fun loadGeocacheDetails(geocacheLite: GeocacheLite): Geocache {
+    private suspend fun loadGeocacheDetails(geocacheLite: GeocacheLite, sections: Set<GeocacheSection>): Geocache {
+        val cacheKey = geocacheLite.code?.let { "$username/$it" }
+        // The cache may read files, so it is not touched on the caller's dispatcher.
+        val stored = if(cacheKey!=null && geocacheCache!=null) withContext(ioDispatcher) { geocacheCache.get(cacheKey) } else null
+        val cached = stored?.takeIf { it.sections.containsAll(sections) }
+
+        if(cached!=null && cached.isFresh(configuration.detailCacheTtl)) {
+            LOG.debug("Details for '{}' are taken from the cache.", geocacheLite.url)
+            return project(cached, sections)
+        }
+
         val geocache = Geocache(geocacheLite)
 
         LOG.debug("Start loading details for '{}'..", geocache.url)
 
-        val pageBody = network.getResponseStringBody(network.getRequest(geocache.url))
+        val (loadedPage, validators) = metrics.stage(Metrics.Stage.DETAIL_FETCH).time { loadPage(geocache.url, cached?.validators) } ?: run {
+            LOG.debug("Cached details for '{}' are still valid.", geocache.url)
+            geocacheCache?.let { withContext(ioDispatcher) { it.put(cacheKey!!, cached!!.copy(stored = System.currentTimeMillis())) } }
+            return project(cached!!, sections)
+        }
+        val page = MeteredGeocachePage(loadedPage, metrics)
+        val parseStart = System.nanoTime()
+        val loadedSections = sections + stored?.sections.orEmpty()
 
         // WAITING: I have no premium membership active, so I am not able to see Premium cache's source page. If anybody provides it to me, I will be able to change current implementation.
         // Check whether cache is premium only and logged-in user is not.
-        if(Constant.REGEX_CACHE_PREMIUM_ONLY.containsMatchIn(pageBody)) {
+        if(page.containsMatchIn(PageField.PREMIUM_ONLY)) {
             LOG.debug("Ups, given cache is Premium only, but logged in user is a Basic member. The cache will be skipped.")
 
             // Don't care about the cache if logged-in user is not a Premium member.
@@ -573,30 +475,30 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         }
 
         // Check whether cache is disabled.
-        geocache.isDisabled = Constant.REGEX_CACHE_IS_DISABLED.containsMatchIn(pageBody)
+        geocache.isDisabled = page.containsMatchIn(PageField.IS_DISABLED)
 
         // Check whether cache is archived.
-        geocache.isArchived = Constant.REGEX_CACHE_IS_ARCHIVED.containsMatchIn(pageBody) || Constant.REGEX_CACHE_IS_LOCKED.containsMatchIn(pageBody)
+        geocache.isArchived = page.containsMatchIn(PageField.IS_ARCHIVED) || page.containsMatchIn(PageField.IS_LOCKED)
 
         // Check whether cache is favorite.
-        geocache.isFavorite = Constant.REGEX_CACHE_IS_FAVORITE.containsMatchIn(pageBody)
+        geocache.isFavorite = page.containsMatchIn(PageField.IS_FAVORITE)
 
         // Load cache's name.
-        Constant.REGEX_CACHE_NAME.find(pageBody)?.groupValues?.get(1)?.trim().nullableExecute({
+        page.find(PageField.NAME)?.groupValues?.get(1)?.trim().nullableExecute({
             geocache.name = this
         }, {
             LOG.warn("Can not parse cache's name from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's code.
-        Constant.REGEX_CACHE_CODE.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.CODE)?.groupValues?.get(1).nullableExecute({
             geocache.code = this
         }, {
             LOG.warn("Can not parse cache's code from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's id.
-        Constant.REGEX_CACHE_ID.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.ID)?.groupValues?.get(1).nullableExecute({
             try {
                 geocache.id = toLong()
             } catch(e: NumberFormatException) {
@@ -607,21 +509,21 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache's type.
-        Constant.REGEX_CACHE_TYPE.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.TYPE)?.groupValues?.get(1).nullableExecute({
             geocache.type = CacheType.findByWptTypeId(this)
         }, {
             LOG.warn("Can not parse cache's type from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's GUID.
-        Constant.REGEX_CACHE_GUID.find(pageBody)?.groupValues?.get(1)?.trim().nullableExecute({
+        page.find(PageField.GUID)?.groupValues?.get(1)?.trim().nullableExecute({
             geocache.guid = this
         }, {
             LOG.warn("Can not parse cache's GUID from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's watchlist count.
-        Constant.REGEX_CACHE_WATCHLIST_COUNT.find(pageBody)?.groupValues?.get(1)?.trim().nullableExecute({
+        page.find(PageField.WATCHLIST_COUNT)?.groupValues?.get(1)?.trim().nullableExecute({
             try {
                 geocache.watchlistCount = toInt()
             } catch (e: NumberFormatException) {
@@ -632,7 +534,7 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache's terrain.
-        Constant.REGEX_CACHE_TERRAIN.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.TERRAIN)?.groupValues?.get(1).nullableExecute({
             try {
                 geocache.terrain = toDouble()
             } catch(e: NumberFormatException) {
@@ -643,7 +545,7 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache's difficulty.
-        Constant.REGEX_CACHE_DIFFICULTY.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.DIFFICULTY)?.groupValues?.get(1).nullableExecute({
             try {
                 geocache.difficulty = toDouble()
             } catch(e: NumberFormatException) {
@@ -654,14 +556,14 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache's size.
-        Constant.REGEX_CACHE_SIZE.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.SIZE)?.groupValues?.get(1).nullableExecute({
             geocache.sizeType = CacheSizeType.findByPattern(this)
         }, {
             LOG.warn("Can not parse cache's size from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's favorite count.
-        Constant.REGEX_CACHE_FAVORITE_COUNT.find(pageBody)?.groupValues?.get(1)?.trim().nullableExecute({
+        page.find(PageField.FAVORITE_COUNT)?.groupValues?.get(1)?.trim().nullableExecute({
             try {
                 geocache.favoriteCount = toInt()
             } catch(e: NumberFormatException) {
@@ -672,21 +574,21 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache's owner name.
-        Constant.REGEX_CACHE_OWNER_NAME.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.OWNER_NAME)?.groupValues?.get(1).nullableExecute({
             geocache.ownerName = this
         },{
             LOG.warn("Can not parse cache's owner name from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's owner ID.
-        Constant.REGEX_CACHE_OWNER_ID.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.OWNER_ID)?.groupValues?.get(1).nullableExecute({
             geocache.ownerId = network.decode(this)
         }, {
             LOG.warn("Can not parse cache's owner ID from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's hidden date.
-        Constant.REGEX_CACHE_HIDDEN.find(pageBody)?.groupValues?.get(1)?.trim().nullableExecute({
+        page.find(PageField.HIDDEN)?.groupValues?.get(1)?.trim().nullableExecute({
             val input = this
             parseDate(input, PATTERN_DATE_ISO, PATTERN_DATE_PAGE).nullableExecute({
                 geocache.hiddenDate = this.time
@@ -698,7 +600,7 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache's coordinates.
-        Constant.REGEX_CACHE_COORDINATES.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.COORDINATES)?.groupValues?.get(1).nullableExecute({
             try {
                 geocache.coordinates = parser.parse(this)
             } catch(e: CoordinateParseException) {
@@ -709,39 +611,39 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache's location.
-        Constant.REGEX_CACHE_LOCATION.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.LOCATION)?.groupValues?.get(1).nullableExecute({
             geocache.location = this
         }, {
             LOG.warn("Can not parse cache's location from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's hint.
-        Constant.REGEX_CACHE_HINT.find(pageBody)?.groupValues?.get(1)?.trim().nullableExecute({
+        page.find(PageField.HINT)?.groupValues?.get(1)?.trim().nullableExecute({
             geocache.hint = this
         }, {
             LOG.warn("Can not parse cache's hint from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's personal note. This is OPTIONAL so no LOG message if there is no match.
-        Constant.REGEX_CACHE_PERSONAL_NOTE.find(pageBody)?.groupValues?.get(1)?.trim()?.let {
+        page.find(PageField.PERSONAL_NOTE)?.groupValues?.get(1)?.trim()?.let {
             geocache.personalNote = it
         }
 
         // Load cache's short description.
-        Constant.REGEX_CACHE_DESCRIPTION_SHORT.find(pageBody)?.groupValues?.get(1)?.trim().nullableExecute({
+        page.find(PageField.DESCRIPTION_SHORT)?.groupValues?.get(1)?.trim().nullableExecute({
             geocache.shortDescription = this
         }, {
             LOG.warn("Can not parse cache's short description from cache's page '{}'.", geocache.url)
         })
 
         // Load cache's longDescription.
-        val cacheDescription = Constant.REGEX_CACHE_DESCRIPTION.find(pageBody)?.groupValues?.get(1)?.trim()
+        val cacheDescription = page.find(PageField.DESCRIPTION)?.groupValues?.get(1)?.trim()
         if(cacheDescription==null) {
             LOG.warn("Can not parse cache's longDescription from cache's page '{}'.", geocache.url)
         }
 
         // Load cache's related page. This is OPTIONAL so no LOG message if there is no match.
-        val cacheDescriptionRelatedPage = Constant.REGEX_CACHE_DESCRIPTION_RELATED_PAGE.find(pageBody)?.groupValues?.get(1)?.trim()
+        val cacheDescriptionRelatedPage = page.find(PageField.DESCRIPTION_RELATED_PAGE)?.groupValues?.get(1)?.trim()
 
         if(!cacheDescriptionRelatedPage.isNullOrEmpty()) {
             geocache.longDescription = cacheDescription ?: ("" + String.format(
@@ -754,7 +656,7 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         }
 
         // Load cache's attributes.
-        Constant.REGEX_CACHE_ALL_ATTRIBUTES.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.ALL_ATTRIBUTES)?.groupValues?.get(1).nullableExecute({
             val cacheAttributes = mutableListOf<Attribute>()
 
             Constant.REGEX_CACHE_ATTRIBUTE.findAll(this).forEach { cacheAttributeMatch ->
@@ -782,47 +684,47 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
                 geocache.attributes = cacheAttributes
             }
         }, {
-            if (!Constant.REGEX_CACHE_NO_ATTRIBUTES.containsMatchIn(pageBody)) {
+            if (!page.containsMatchIn(PageField.NO_ATTRIBUTES)) {
                 LOG.warn("Can not parse cache's attributes from cache's page '{}'.", geocache.url)
             }
         })
 
         // Check whether cache has been found by a user.
-        geocache.found = Constant.REGEX_CACHE_FOUND.containsMatchIn(pageBody)
+        geocache.found = page.containsMatchIn(PageField.FOUND)
 
         // Check whether cache is on user's watchlist.
-        geocache.onWatchList = Constant.REGEX_CACHE_ON_WATCHLIST.containsMatchIn(pageBody)
+        geocache.onWatchList = page.containsMatchIn(PageField.ON_WATCHLIST)
 
         // Load cache's spoilers.
-        val cacheSpoilerImages = mutableListOf<Image>()
-        Constant.REGEX_CACHE_SPOILER_IMAGES.findAll(pageBody).forEach { matchResult ->
-            val spoilerUri = matchResult.groupValues[1]
-            if(spoilerUri.isNotEmpty()) {
-                val spoilerGuid = Constant.REGEX_CACHE_SPOILED_IMAGE_GUID.find(spoilerUri)?.groupValues?.get(1)
-                val spoilerTitle = matchResult.groupValues[2]
-                var spoilerDescription: String? = matchResult.groupValues[3]
-                if(spoilerDescription != null && spoilerDescription.isEmpty()) spoilerDescription = null
-
-                cacheSpoilerImages.add(Image(spoilerUri, spoilerGuid, spoilerTitle, spoilerDescription))
+        if(GeocacheSection.SPOILERS in loadedSections) {
+            val cacheSpoilerImages = mutableListOf<Image>()
+            page.findAll(PageField.SPOILER_IMAGES).forEach { matchResult ->
+                val spoilerUri = matchResult.groupValues[1]
+                if(spoilerUri.isNotEmpty()) {
+                    val spoilerGuid = Constant.REGEX_CACHE_SPOILED_IMAGE_GUID.find(spoilerUri)?.groupValues?.get(1)
+                    val spoilerTitle = matchResult.groupValues[2]
+                    var spoilerDescription: String? = matchResult.groupValues[3]
+                    if(spoilerDescription != null && spoilerDescription.isEmpty()) spoilerDescription = null
+
+                    cacheSpoilerImages.add(Image(spoilerUri, spoilerGuid, spoilerTitle, spoilerDescription))
+                }
             }
-        }
 
-        if(cacheSpoilerImages.isNotEmpty()) {
-            geocache.spoilers = cacheSpoilerImages
+            if(cacheSpoilerImages.isNotEmpty()) {
+                geocache.spoilers = cacheSpoilerImages
+            }
         }
 
         // Load cache's inventory. This is OPTIONAL so no LOG message if there is no match.
-        Constant.REGEX_CACHE_INVENTORY.find(pageBody)?.groupValues?.get(1)?.let {
+        page.takeIf { GeocacheSection.TRACKABLES in loadedSections }?.find(PageField.INVENTORY)?.groupValues?.get(1)?.let {
             val cacheInventory = mutableListOf<Trackable>()
 
             Constant.REGEX_CACHE_INVENTORY_ITEMS.findAll(it).forEach { matchResult ->
                 val trackableGuid = matchResult.groupValues[1]
                 val trackableName = matchResult.groupValues[2]
 
-                val trackable = Trackable(trackableGuid, trackableName, TrackableBrand.TRAVELBUG)
-                loadTrackableDetails(trackable)
-
-                cacheInventory.add(trackable)
+                // Details of the trackable are loaded later together with other sub-requests.
+                cacheInventory.add(Trackable(trackableGuid, trackableName, TrackableBrand.TRAVELBUG))
             }
 
             if(cacheInventory.isNotEmpty()) {
@@ -831,7 +733,7 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         }
 
         // Load cache's logs' counts.
-        Constant.REGEX_CACHE_LOGCOUNTS.find(pageBody)?.groupValues?.get(1).nullableExecute({
+        page.find(PageField.LOG_COUNTS)?.groupValues?.get(1).nullableExecute({
             val cacheLogsCounts = mutableMapOf<LogType, Int>()
 
             Constant.REGEX_CACHE_LOGCOUNTS_ITEM.findAll(this).forEach { matchResult ->
@@ -856,7 +758,7 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
         })
 
         // Load cache way points. This is OPTIONAL so no LOG message if there is no match.
-        Constant.REGEX_CACHE_WAYPOINTS.find(pageBody)?.groupValues?.get(1)?.let {
+        page.takeIf { GeocacheSection.WAYPOINTS in loadedSections }?.find(PageField.WAYPOINTS)?.groupValues?.get(1)?.let {
             val cacheWayPoints = mutableListOf<Waypoint>()
 
             Constant.REGEX_CACHE_WAYPOINTS_ITEM.findAll(it).forEach { matchResult ->
@@ -910,29 +812,90 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
             }
         }
 
-        // Load cache's log entries.
-        Constant.REGEX_USER_TOKEN.find(pageBody)?.groupValues?.get(1).nullableExecute({
-            var cacheLogEntries: MutableList<LogEntry>? = null
+        // Load cache's user token needed for log entries.
+        val userToken = if(GeocacheSection.LOGBOOK in loadedSections && configuration.logDepth > 0) {
+            page.find(PageField.USER_TOKEN)?.groupValues?.get(1).also {
+                if(it==null) LOG.warn("Can not parse userToken from cache's page '{}'.", geocache.url)
+            }
+        } else {
+            null
+        }
+        metrics.stage(Metrics.Stage.PAGE_PARSE).record(System.nanoTime() - parseStart)
 
-            try {
-                // Load all but own and friends' log entries.
-                val logEntries = loadLogEntries(this, geocache.url)
-                if(logEntries!=null) {
-                    cacheLogEntries = mutableListOf()
-                    cacheLogEntries.addAll(logEntries)
-                }
-            } catch(e: NetworkException) {
-                LOG.warn("Can not load log entries for cache '{}'.", geocache.url, e)
+        // Sub-requests of the cache are loaded at once. Each of them still has to pass through the throttle, so the total number of parallel requests is kept.
+        coroutineScope {
+            geocache.inventory?.forEach { trackable ->
+                launch { loadTrackableDetails(trackable) }
             }
 
-            if(!cacheLogEntries.isNullOrEmpty()) {
-                geocache.logEntries = cacheLogEntries
+            // Load cache's log entries.
+            userToken?.let {
+                launch {
+                    try {
+                        // Load all but own and friends' log entries.
+                        val logEntries = metrics.stage(Metrics.Stage.LOGBOOK).time { loadLogEntries(it, geocache.url) }
+                        if(!logEntries.isNullOrEmpty()) {
+                            geocache.logEntries = logEntries
+                        }
+                    } catch(e: NetworkException) {
+                        LOG.warn("Can not load log entries for cache '{}'.", geocache.url, e)
+                    }
+                }
             }
-        }, {
-            LOG.warn("Can not parse userToken from cache's page '{}'.", geocache.url)
-        })
+        }
+
+        val entry = GeocacheCache.Entry(geocache, System.currentTimeMillis(), validators, loadedSections)
+        if(cacheKey!=null && geocacheCache!=null) withContext(ioDispatcher) { geocacheCache.put(cacheKey, entry) }
 
-        return geocache
+        return project(entry, sections)
+    }
+
+    /**
+     * Returns geocache of given cache entry without sections which are not requested.
+     * @param entry Cache entry containing at least requested sections.
+     * @param sections Requested sections.
+     * @return Cached geocache itself if it contains requested sections only, its copy otherwise.
+     */
+    private fun project(entry: GeocacheCache.Entry, sections: Set<GeocacheSection>): Geocache {
+        val geocache = entry.geocache
+        if(sections.containsAll(entry.sections)) return geocache
+
+        return geocache.copy(
+                spoilers = geocache.spoilers.takeIf { GeocacheSection.SPOILERS in sections },
+                inventory = geocache.inventory.takeIf { GeocacheSection.TRACKABLES in sections },
+                waypoints = geocache.waypoints.takeIf { GeocacheSection.WAYPOINTS in sections },
+                logEntries = geocache.logEntries.takeIf { GeocacheSection.LOGBOOK in sections }
+        ).apply {
+            id = geocache.id
+            name = geocache.name
+            code = geocache.code
+            url = geocache.url
+            isPremiumOnly = geocache.isPremiumOnly
+        }
+    }
+
+    /**
+     * Loads a page and prepares it for extraction by [pageExtractor]. The page is parsed while it is being read from the network.
+     * @param url Url of the page.
+     * @param validators Validators of previously loaded page. If they are given, the page is loaded only if it has changed since.
+     * @return Page ready for extraction together with its validators, or null if the page has not changed.
+     * @throws [NetworkException] If the page can't be loaded.
+     */
+    @Throws(NetworkException::class)
+    private suspend fun loadPage(url: String, validators: CacheValidators? = null): Pair<GeocachePage, CacheValidators?>? = throttle.execute {
+        val response = network.conditionalGetRequest(url, validators)
+
+        withContext(ioDispatcher) {
+            response.use {
+                if(validators!=null && network.isNotModified(it)) return@use null
+
+                try {
+                    network.getResponseCharStreamBody(it).use { reader -> pageExtractor.open(reader) } to network.getCacheValidators(it)
+                } catch(e: IOException) {
+                    throw NetworkException("Can't obtain response body.", e)
+                }
+            }
+        }
     }
 
     private fun parseDate(input: String, vararg formats: String): Date? {
@@ -946,30 +909,15 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
     }
 
     /**
-     * Loads details of given trackable.
+     * Loads details of given trackable. Details are taken from [trackableCache] if the trackable has been seen already.
      * @param trackable Trackable to load details for.
      */
     private suspend fun loadTrackableDetails(trackable: Trackable) {
         trackable.guid?.let { guid ->
-            LOG.debug("Start loading details for trackable: {}.", guid)
-
-            val parameters = HttpParameters(
-                    Parameter.TRACKABLE_GUID.parameterName, guid
-            )
-
             try {
-                val trackablePage = network.getResponseStringBody(network.getRequest(Constant.URI_TRACKABLE, parameters, null))
-
-                Constant.REGEX_TRACKABLE_CODE.find(trackablePage)?.groupValues?.get(1)?.let {
-                    trackable.code = it
-                }
-
-                Constant.REGEX_TRACKABLE_ID.find(trackablePage)?.groupValues?.get(1)?.let {
-                    try {
-                        trackable.id = it.toLong()
-                    } catch(e: NumberFormatException) {
-                        LOG.warn("Can not parse trackable id for: '{}'.", guid, e)
-                    }
+                trackableCache.get(guid) { metrics.stage(Metrics.Stage.TRACKABLES).time { downloadTrackableDetails(it) } }?.let { details ->
+                    trackable.code = details.code
+                    trackable.id = details.id
                 }
             } catch(e: NetworkException) {
                 LOG.warn("Can not load trackable's details for: '{}'.", guid, e)
@@ -978,119 +926,111 @@ class GeoCachingCom(private val network: Network, private val parser: Parser, pr
     }
 
     /**
-     * Loads log entries.
+     * Downloads details of a trackable.
+     * @param guid GUID of the trackable.
+     * @return Details of the trackable or null if trackable's page does not contain any.
+     * @throws [NetworkException] If trackable's page can not be loaded.
+     */
+    @Throws(NetworkException::class)
+    private suspend fun downloadTrackableDetails(guid: String): TrackableCache.Details? {
+        LOG.debug("Start loading details for trackable: {}.", guid)
+
+        val parameters = HttpParameters(
+                Parameter.TRACKABLE_GUID.parameterName, guid
+        )
+
+        val trackablePage = throttle.execute { network.getResponseStringBody(network.getRequest(Constant.URI_TRACKABLE, parameters, null)) }
+
+        val code = Constant.REGEX_TRACKABLE_CODE.find(trackablePage)?.groupValues?.get(1)
+
+        val id = Constant.REGEX_TRACKABLE_ID.find(trackablePage)?.groupValues?.get(1)?.let {
+            try {
+                it.toLong()
+            } catch(e: NumberFormatException) {
+                LOG.warn("Can not parse trackable id for: '{}'.", guid, e)
+                null
+            }
+        }
+
+        return if(code==null && id==null) null else TrackableCache.Details(code, id)
+    }
+
+    /**
+     * Loads log entries up to [ServiceConfiguration.logDepth]. The first page of the logbook tells how many pages there
+     * are, all the other needed pages are loaded at once then.
      * @param userToken User token used for loading log entries for specific geocache.
      * @param geocacheUrl Geocache's url.
      * @return List of log entries. Or empty list of no log entries have been found. Or null if obtained response can not be recognized.
      * @throws [NetworkException] If anything goes wrong.
      */
     @Throws(NetworkException::class)
-    private suspend fun loadLogEntries(userToken: String, geocacheUrl: String): List<LogEntry>? {
+    private suspend fun loadLogEntries(userToken: String, geocacheUrl: String): List<LogEntry>? = coroutineScope {
         LOG.debug("Start loading log entries for '{}'.", geocacheUrl)
 
+        val logDepth = configuration.logDepth
+        val pageSize = minOf(logDepth, Constant.DEFAULT_LOGS_COUNT)
+        val firstPage = loadLogbookPage(userToken, geocacheUrl, 1, pageSize) ?: return@coroutineScope null
+
+        val neededPageCount = (logDepth + pageSize - 1) / pageSize
+        val pageCount = firstPage.pageInfo?.totalPages ?: if(firstPage.logs.size < pageSize) 1 else neededPageCount
+        val otherPages = (2..minOf(neededPageCount, pageCount))
+                .map { idx -> async { loadLogbookPage(userToken, geocacheUrl, idx, pageSize) } }
+                .awaitAll()
+
+        (listOf(firstPage) + otherPages.filterNotNull())
+                .asSequence()
+                .flatMap { it.logs }
+                .take(logDepth)
+                .map { toLogEntry(it) }
+                .toList()
+    }
+
+    /**
+     * Loads a page of logbook. The page is decoded directly from the response.
+     * @param userToken User token used for loading log entries for specific geocache.
+     * @param geocacheUrl Geocache's url.
+     * @param idx Index of the page, starting from 1.
+     * @param pageSize Count of log entries on a page.
+     * @return The page or null if obtained response can not be recognized.
+     * @throws [NetworkException] If anything goes wrong.
+     */
+    @Throws(NetworkException::class)
+    private suspend fun loadLogbookPage(userToken: String, geocacheUrl: String, idx: Int, pageSize: Int): Logbook? {
         val parameters = HttpParameters(
                 Parameter.LOG_USER_TOKEN.parameterName, userToken,
-                Parameter.LOG_IDX.parameterName, "1",
-                Parameter.LOG_COUNT.parameterName, Constant.DEFAULT_LOGS_COUNT.toString(),
+                Parameter.LOG_IDX.parameterName, idx.toString(),
+                Parameter.LOG_COUNT.parameterName, pageSize.toString(),
                 Parameter.LOG_DECRYPT.parameterName, "false"
         )
 
-        val cacheLogs = network.getResponseStringBody(network.getRequest(Constant.URI_CACHE_LOGBOOK, parameters, null))
-
-        try {
-            // TODO: Refactor to data class!!!
-            val logEntries: JsonObject = json.parseToJsonElement(cacheLogs).jsonObject
-            if(logEntries[Constant.REQUEST_STATUS]?.jsonPrimitive?.content=="success") {
-                val cacheLogEntries = mutableListOf<LogEntry>()
-
-                logEntries[Constant.REQUEST_DATA]?.jsonArray
-                        ?.forEach { jsonLogEntryElement ->
-                            val logEntry = LogEntry()
-                            val jsonLogEntry = jsonLogEntryElement.jsonObject
-
-                            jsonLogEntry[Constant.LOG_ID]?.jsonPrimitive?.longOrNull.nullableExecute({
-                                logEntry.id = this
-                            }, {
-                                LOG.warn("Can not obtain log entry's id.")
-                            })
-
-                            jsonLogEntry[Constant.LOG_TYPE]?.jsonPrimitive?.content.nullableExecute({
-                                logEntry.type = LogType.findByType(this)
-                            }, {
-                                LOG.warn("Can not obtain log entry's id.")
-                            })
-
-                            jsonLogEntry[Constant.LOG_TEXT]?.jsonPrimitive?.content?.trim()?.replace("<p>", "")?.replace("</p>", "").nullableExecute({
-                                logEntry.text = this
-                            }, {
-                                LOG.warn("Can not obtain log entry's text.")
-                            })
-
-                            jsonLogEntry[Constant.LOG_VISITED]?.jsonPrimitive?.contentOrNull.nullableExecute({
-                                val input = this
-                                parseDate(input, PATTERN_DATE_ISO, PATTERN_DATE_PAGE).nullableExecute({
-                                    logEntry.visited = this.time
-                                }, {
-                                    LOG.warn("Can not parse log visited date: '$input'.")
-                                })
-                            }, {
-                                LOG.warn("Can not obtain log visited.")
-                            })
-
-                            jsonLogEntry[Constant.LOG_AUTHOR]?.jsonPrimitive?.contentOrNull.nullableExecute({
-                                logEntry.author = this
-                            }, {
-                                LOG.warn("Can not obtain log author.")
-                            })
-
-                            jsonLogEntry[Constant.LOG_AUTHOR_ID]?.jsonPrimitive?.longOrNull.nullableExecute({
-                                logEntry.authorId = this
-                            }, {
-                                LOG.warn("Can not obtain log author's id.")
-                            })
-
-                            val logImages = mutableListOf<Image>()
-                            jsonLogEntry[Constant.LOG_IMAGES]?.jsonArray?.forEach logImageTree@ { logImageTreeElement ->
-                                val logImageTree = logImageTreeElement.jsonObject
-                                val imageFileName = logImageTree[Constant.LOG_IMAGE_FILENAME]?.jsonPrimitive?.contentOrNull ?: return@logImageTree
-
-                                val logImage = Image(Constant.URI_IMAGE_LARGE + imageFileName)
-                                logImage.guid = imageFileName.substringBefore(".")
-
-                                logImageTree[Constant.LOG_IMAGE_NAME]?.jsonPrimitive?.contentOrNull.nullableExecute({
-                                    if (isNotEmpty()) {
-                                        logImage.title = this
-                                    }
-                                }, {
-                                    LOG.warn("Can not obtain log image's name.")
-                                })
-
-                                logImageTree[Constant.LOG_IMAGE_DESCRIPTION]?.jsonPrimitive?.contentOrNull.nullableExecute({
-                                    if (isNotEmpty()) logImage.description = this
-                                }, {
-                                    LOG.warn("Can not obtain log image's description.")
-                                })
-
-                                logImages.add(logImage)
-                            }
-
-                            if (logImages.isNotEmpty()) {
-                                logEntry.images = logImages
-                            }
-
-                            cacheLogEntries.add(logEntry)
-                        }
-
-                return cacheLogEntries
-            }
-
-            return null
-        } catch (e: Exception) {
+        val logbook = try {
+            throttle.execute { network.requestFor<Logbook>(Network.Method.GET, Constant.URI_CACHE_LOGBOOK, parameters, null) }
+        } catch (e: SerializationException) {
             LOG.warn("Can not parse log entries for cache '{}': '{}'.", geocacheUrl, e.message)
             return null
         }
+
+        return logbook.takeIf { it.status==Logbook.STATUS_SUCCESS }
     }
 
+    private fun toLogEntry(log: Logbook.Log) = LogEntry(
+            log.id,
+            log.type?.let { LogType.findByType(it) },
+            log.text?.trim()?.replace("<p>", "")?.replace("</p>", ""),
+            log.visited?.let { visited ->
+                parseDate(visited, PATTERN_DATE_ISO, PATTERN_DATE_PAGE)?.time.also {
+                    if(it==null) LOG.warn("Can not parse log visited date: '{}'.", visited)
+                }
+            },
+            log.author,
+            log.authorId,
+            log.images
+                    .mapNotNull { image ->
+                        image.fileName?.let { Image(Constant.URI_IMAGE_LARGE + it, it.substringBefore("."), image.name?.ifEmpty { null }, image.description?.ifEmpty { null }) }
+                    }
+                    .ifEmpty { null }
+    )
+
     /**
      * Switch to English version of Geocaching page.
      * @throws [NetworkException] If anything goes wrong.
@@ -1382,5 +1322,4 @@ object Constant {
     @JvmField val REGEX_CACHE_WAYPOINTS_ITEM_COORDINATIONS = ">([\\s\\S]*?)&nbsp;[\\s\\S]*?</td>".toRegex()
     @JvmField val REGEX_TRACKABLE_CODE = "CoordInfoCode\">(TB[0-9A-Z]+)<".toRegex()
     @JvmField val REGEX_TRACKABLE_ID = "/my/watchlist\\.aspx\\?b=(\\d+)\"".toRegex()
-    @JvmField val REGEX_KNOWN_INVALID_XML_CHARS = "(&#8;)".toRegex()
 }
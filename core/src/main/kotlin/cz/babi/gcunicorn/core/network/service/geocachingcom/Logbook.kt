@@ -0,0 +1,86 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom
+
+import kotlinx.serialization.SerialName
+import kotlinx.serialization.Serializable
+
+/**
+ * Page of geocache's logbook as it is returned by [Constant.URI_CACHE_LOGBOOK].
+ *
+ * Only fields used by the service are declared, the others are skipped while decoding.
+ *
+ * @param status Status of the request. It is [STATUS_SUCCESS] if the page has been loaded.
+ * @param logs Log entries of the page.
+ * @param pageInfo Paging of the logbook.
+ * @since 3.1.0
+ */
+@Serializable
+data class Logbook(
+        @SerialName(Constant.REQUEST_STATUS) val status: String? = null,
+        @SerialName(Constant.REQUEST_DATA) val logs: List<Log> = emptyList(),
+        val pageInfo: PageInfo? = null
+) {
+    companion object {
+        const val STATUS_SUCCESS = "success"
+    }
+
+    // Complete example:
+    //    {
+    //      "LogID": 1234567890,
+    //      "CacheID": 4242,
+    //      "LogGuid": "a1b2c3d4-...",
+    //      "LogTypeID": 2,
+    //      "LogType": "Found it",
+    //      "LogText": "<p>TFTC</p>",
+    //      "Created": "2024-05-01",
+    //      "Visited": "2024-05-01",
+    //      "UserName": "unicorn",
+    //      "AccountID": 100000,
+    //      "Images": [...]
+    //    }
+    @Serializable
+    data class Log(
+            @SerialName(Constant.LOG_ID) val id: Long? = null,
+            @SerialName(Constant.LOG_TYPE) val type: String? = null,
+            @SerialName(Constant.LOG_TEXT) val text: String? = null,
+            @SerialName(Constant.LOG_VISITED) val visited: String? = null,
+            @SerialName(Constant.LOG_AUTHOR) val author: String? = null,
+            @SerialName(Constant.LOG_AUTHOR_ID) val authorId: Long? = null,
+            @SerialName(Constant.LOG_IMAGES) val images: List<Image> = emptyList()
+    )
+
+    @Serializable
+    data class Image(
+            @SerialName(Constant.LOG_IMAGE_FILENAME) val fileName: String? = null,
+            @SerialName(Constant.LOG_IMAGE_NAME) val name: String? = null,
+            @SerialName(Constant.LOG_IMAGE_DESCRIPTION) val description: String? = null
+    )
+
+    // Complete example:
+    //    {
+    //      "idx": 1,
+    //      "size": 35,
+    //      "totalRows": 412,
+    //      "totalPages": 12,
+    //      "rows": 35
+    //    }
+    @Serializable
+    data class PageInfo(val totalRows: Int? = null, val totalPages: Int? = null)
+}
@@ -0,0 +1,165 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.cache
+
+import cz.babi.gcunicorn.`fun`.logger
+import org.slf4j.Logger
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileNotFoundException
+import java.io.FileOutputStream
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+/**
+ * [GeocacheCache] storing every entry in its own gzipped file within given directory.
+ *
+ * The cache is bounded by total size of its files. Least recently used entries are evicted once the size is exceeded.
+ * Time of the last use of an entry is kept as modification time of its file, so the order survives restarts. Only the
+ * bookkeeping of stored files is synchronized, entries are encoded and decoded outside of the lock.
+ *
+ * @param directory Directory to store entries in. It is created if it does not exist.
+ * @param maxSize Max total size of stored entries in bytes.
+ * @throws [IllegalArgumentException] If max size is not positive.
+ * @since 3.1.0
+ */
+class DiskGeocacheCache(private val directory: File, private val maxSize: Long = DEFAULT_MAX_SIZE) : GeocacheCache {
+
+    companion object {
+        private val LOG: Logger = logger<DiskGeocacheCache>()
+
+        /** Default max size of the cache. */
+        const val DEFAULT_MAX_SIZE = 64L * 1024 * 1024
+
+        private const val EXTENSION = ".gc"
+        private const val EXTENSION_TEMPORARY = ".tmp"
+    }
+
+    /** Sizes of stored files by their names, ordered from the least recently used one. */
+    private val files = LinkedHashMap<String, Long>(16, 0.75f, true)
+    private var size = 0L
+
+    init {
+        require(maxSize > 0) { "Max size has to be positive number." }
+
+        if(!directory.isDirectory && !directory.mkdirs()) {
+            LOG.warn("Can not create cache directory '{}'.", directory)
+        }
+
+        directory.listFiles()?.let { stored ->
+            stored.filter { it.name.endsWith(EXTENSION_TEMPORARY) }.forEach { it.delete() }
+            stored.filter { it.isFile && it.name.endsWith(EXTENSION) }
+                    .sortedBy { it.lastModified() }
+                    .forEach {
+                        files[it.name] = it.length()
+                        size += it.length()
+                    }
+        }
+
+        trim()
+    }
+
+    override fun get(key: String): GeocacheCache.Entry? {
+        val fileName = fileName(key)
+        // Marks the entry as the most recently used one.
+        synchronized(this) { if(files[fileName]==null) return null }
+
+        val file = File(directory, fileName)
+        return try {
+            val (storedKey, entry) = DataInputStream(GZIPInputStream(BufferedInputStream(FileInputStream(file)))).use { GeocacheCodec.read(it) }
+            if(storedKey!=key) return null
+
+            file.setLastModified(System.currentTimeMillis())
+            entry
+        } catch(e: FileNotFoundException) {
+            // The entry has been evicted or replaced meanwhile.
+            null
+        } catch(e: Exception) {
+            // Damaged entry or an entry of older version.
+            LOG.debug("Can not read cached geocache '{}'. The entry will be removed.", key, e)
+            synchronized(this) { delete(fileName) }
+            null
+        }
+    }
+
+    override fun put(key: String, entry: GeocacheCache.Entry) {
+        val fileName = fileName(key)
+        val file = File(directory, fileName)
+        var temporaryFile: File? = null
+
+        try {
+            // Concurrent puts of the same key must not write into the same file.
+            temporaryFile = File.createTempFile(fileName, EXTENSION_TEMPORARY, directory)
+            DataOutputStream(GZIPOutputStream(BufferedOutputStream(FileOutputStream(temporaryFile)))).use { GeocacheCodec.write(key, entry, it) }
+
+            synchronized(this) {
+                delete(fileName)
+                if(!temporaryFile.renameTo(file)) throw IOException("Can not rename '$temporaryFile' to '$file'.")
+
+                files[fileName] = file.length()
+                size += file.length()
+                trim()
+            }
+        } catch(e: IOException) {
+            LOG.warn("Can not store geocache '{}' into the cache.", key, e)
+            temporaryFile?.delete()
+        }
+    }
+
+    @Synchronized
+    override fun remove(key: String) {
+        delete(fileName(key))
+    }
+
+    @Synchronized
+    override fun clear() {
+        files.keys.toList().forEach { delete(it) }
+    }
+
+    /**
+     * Evicts the least recently used entries until total size fits into [maxSize].
+     */
+    private fun trim() {
+        val iterator = files.entries.iterator()
+        while(size > maxSize && iterator.hasNext()) {
+            val (fileName, fileSize) = iterator.next()
+            iterator.remove()
+            size -= fileSize
+            File(directory, fileName).delete()
+        }
+    }
+
+    private fun delete(fileName: String) {
+        files.remove(fileName)?.let { size -= it }
+        File(directory, fileName).delete()
+    }
+
+    /**
+     * Creates file name of given key. Keys may contain characters not allowed in file names, so their hash is used.
+     */
+    private fun fileName(key: String) = MessageDigest.getInstance("SHA-1")
+            .digest(key.toByteArray(Charsets.UTF_8))
+            .joinToString("", postfix = EXTENSION) { "%02x".format(it) }
+}
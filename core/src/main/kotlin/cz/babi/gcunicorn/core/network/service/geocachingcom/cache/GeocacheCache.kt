@@ -0,0 +1,79 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.cache
+
+import cz.babi.gcunicorn.core.network.model.CacheValidators
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheSection
+
+/**
+ * Cache of fully loaded geocaches. Implementations have to be thread safe.
+ *
+ * @since 3.1.0
+ */
+interface GeocacheCache {
+
+    /**
+     * Cached geocache.
+     *
+     * @param geocache Loaded geocache.
+     * @param stored Time in milliseconds the geocache has been loaded or revalidated at.
+     * @param validators HTTP validators of geocache's page. They are used for revalidation of expired entry.
+     * @param sections Sections the geocache has been loaded with.
+     */
+    data class Entry(
+            val geocache: Geocache,
+            val stored: Long,
+            val validators: CacheValidators?,
+            val sections: Set<GeocacheSection> = GeocacheSection.values().toSet()
+    ) {
+        /**
+         * Checks whether the entry can be used without revalidation.
+         * @param ttl Time to live in milliseconds.
+         * @param now Current time in milliseconds.
+         * @return True if the entry is younger than given time to live.
+         */
+        fun isFresh(ttl: Long, now: Long = System.currentTimeMillis()) = now - stored < ttl
+    }
+
+    /**
+     * Returns entry of given key. Expired entries are returned as well, so they can be revalidated.
+     * @param key Key of the entry.
+     * @return Entry or null if there is no such entry or it can not be read.
+     */
+    fun get(key: String): Entry?
+
+    /**
+     * Stores given entry under given key. Any previous entry of the key is replaced.
+     * @param key Key of the entry.
+     * @param entry Entry to store.
+     */
+    fun put(key: String, entry: Entry)
+
+    /**
+     * Removes entry of given key.
+     * @param key Key of the entry.
+     */
+    fun remove(key: String)
+
+    /**
+     * Removes all entries.
+     */
+    fun clear()
+}
@@ -0,0 +1,289 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.cache
+
+import cz.babi.gcunicorn.core.location.Coordinates
+import cz.babi.gcunicorn.core.network.model.CacheValidators
+import cz.babi.gcunicorn.core.network.model.Image
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Attribute
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.AttributeType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheSizeType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheLite
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheSection
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogEntry
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Trackable
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.TrackableBrand
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Waypoint
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.WaypointType
+import java.io.DataInput
+import java.io.DataOutput
+import java.io.IOException
+
+/**
+ * Compact binary form of [GeocacheCache.Entry].
+ *
+ * Every nullable value is preceded by a presence flag, enums are stored by their names and strings as UTF-8 bytes
+ * with their length, so even long descriptions can be stored. The form starts with [FORMAT_VERSION], entries of other
+ * versions are refused.
+ *
+ * @since 3.1.0
+ */
+internal object GeocacheCodec {
+
+    /** Version of the binary form. It has to be raised whenever the form changes. */
+    const val FORMAT_VERSION = 2
+
+    /**
+     * Writes given entry.
+     * @param key Key of the entry.
+     * @param entry Entry to write.
+     * @param output Output to write to.
+     * @throws [IOException] If the output can not be written.
+     */
+    @Throws(IOException::class)
+    fun write(key: String, entry: GeocacheCache.Entry, output: DataOutput) = with(output) {
+        writeInt(FORMAT_VERSION)
+        writeString(key)
+        writeLong(entry.stored)
+        writeNullable(entry.validators) {
+            writeNullableString(it.eTag)
+            writeNullableString(it.lastModified)
+        }
+        writeInt(entry.sections.size)
+        entry.sections.forEach { writeUTF(it.name) }
+
+        val geocache = entry.geocache
+        writeNullableLong(geocache.id)
+        writeNullableString(geocache.name)
+        writeNullableString(geocache.code)
+        writeString(geocache.url)
+        writeNullableBoolean(geocache.isPremiumOnly)
+        writeNullableString(geocache.guid)
+        writeNullableEnum(geocache.type)
+        writeNullableBoolean(geocache.isDisabled)
+        writeNullableString(geocache.ownerName)
+        writeNullableString(geocache.ownerId)
+        writeNullableBoolean(geocache.isArchived)
+        writeNullableBoolean(geocache.isFavorite)
+        writeNullableInt(geocache.watchlistCount)
+        writeNullableDouble(geocache.terrain)
+        writeNullableDouble(geocache.difficulty)
+        writeNullableEnum(geocache.sizeType)
+        writeNullableInt(geocache.favoriteCount)
+        writeNullableLong(geocache.hiddenDate)
+        writeNullableCoordinates(geocache.coordinates)
+        writeNullableString(geocache.location)
+        writeNullableString(geocache.hint)
+        writeNullableString(geocache.personalNote)
+        writeNullableString(geocache.longDescription)
+        writeNullableString(geocache.shortDescription)
+        writeNullableList(geocache.attributes) {
+            writeUTF(it.type.name)
+            writeBoolean(it.enabled)
+        }
+        writeNullableBoolean(geocache.found)
+        writeNullableBoolean(geocache.onWatchList)
+        writeNullableList(geocache.spoilers) { writeImage(it) }
+        writeNullableList(geocache.inventory) {
+            writeNullableString(it.guid)
+            writeNullableString(it.name)
+            writeNullableEnum(it.brand)
+            writeNullableString(it.code)
+            writeNullableLong(it.id)
+        }
+        writeNullable(geocache.logCounts) { logCounts ->
+            writeInt(logCounts.size)
+            logCounts.forEach { (logType, count) ->
+                writeUTF(logType.name)
+                writeInt(count)
+            }
+        }
+        writeNullableList(geocache.waypoints) {
+            writeNullableString(it.name)
+            writeNullableEnum(it.type)
+            writeNullableString(it.prefix)
+            writeNullableString(it.lookup)
+            writeNullableString(it.note)
+            writeNullableCoordinates(it.coordinates)
+        }
+        writeNullableList(geocache.logEntries) {
+            writeNullableLong(it.id)
+            writeNullableEnum(it.type)
+            writeNullableString(it.text)
+            writeNullableLong(it.visited)
+            writeNullableString(it.author)
+            writeNullableLong(it.authorId)
+            writeNullableList(it.images) { image -> writeImage(image) }
+        }
+    }
+
+    /**
+     * Reads an entry.
+     * @param input Input to read from.
+     * @return Key of the entry and the entry.
+     * @throws [IOException] If the input can not be read or it contains an entry of unsupported version.
+     * @throws [IllegalArgumentException] If the input contains unknown enum constant or invalid coordinates.
+     */
+    @Throws(IOException::class, IllegalArgumentException::class)
+    fun read(input: DataInput): Pair<String, GeocacheCache.Entry> = with(input) {
+        val version = readInt()
+        if(version!=FORMAT_VERSION) throw IOException("Unsupported version of cached geocache: $version.")
+
+        val key = readString()
+        val stored = readLong()
+        val validators = readNullable { CacheValidators(readNullableString(), readNullableString()) }
+        val sections = List(readInt()) { GeocacheSection.valueOf(readUTF()) }.toSet()
+
+        val geocache = Geocache().apply {
+            id = readNullableLong()
+            name = readNullableString()
+            code = readNullableString()
+            url = readString()
+            isPremiumOnly = readNullableBoolean()
+            guid = readNullableString()
+            type = readNullable { CacheType.valueOf(readUTF()) }
+            isDisabled = readNullableBoolean()
+            ownerName = readNullableString()
+            ownerId = readNullableString()
+            isArchived = readNullableBoolean()
+            isFavorite = readNullableBoolean()
+            watchlistCount = readNullable { readInt() }
+            terrain = readNullable { readDouble() }
+            difficulty = readNullable { readDouble() }
+            sizeType = readNullable { CacheSizeType.valueOf(readUTF()) }
+            favoriteCount = readNullable { readInt() }
+            hiddenDate = readNullableLong()
+            coordinates = readNullableCoordinates()
+            location = readNullableString()
+            hint = readNullableString()
+            personalNote = readNullableString()
+            longDescription = readNullableString()
+            shortDescription = readNullableString()
+            attributes = readNullableList { Attribute(AttributeType.valueOf(readUTF()), readBoolean()) }
+            found = readNullableBoolean()
+            onWatchList = readNullableBoolean()
+            spoilers = readNullableList { readImage() }
+            inventory = readNullableList {
+                Trackable(readNullableString(), readNullableString(), readNullable { TrackableBrand.valueOf(readUTF()) }, readNullableString(), readNullableLong())
+            }
+            logCounts = readNullable {
+                val logCounts = LinkedHashMap<LogType, Int>()
+                repeat(readInt()) { logCounts[LogType.valueOf(readUTF())] = readInt() }
+                logCounts
+            }
+            waypoints = readNullableList {
+                Waypoint(readNullableString(), readNullable { WaypointType.valueOf(readUTF()) }, readNullableString(), readNullableString(), readNullableString(), readNullableCoordinates())
+            }
+            logEntries = readNullableList {
+                LogEntry(readNullableLong(), readNullable { LogType.valueOf(readUTF()) }, readNullableString(), readNullableLong(), readNullableString(), readNullableLong(), readNullableList { readImage() })
+            }
+        }
+
+        key to GeocacheCache.Entry(geocache, stored, validators, sections)
+    }
+
+    /**
+     * Writes given lite geocache.
+     * @param geocacheLite Lite geocache to write.
+     * @param output Output to write to.
+     * @throws [IOException] If the output can not be written.
+     */
+    @Throws(IOException::class)
+    fun writeLite(geocacheLite: GeocacheLite, output: DataOutput) = with(output) {
+        writeNullableLong(geocacheLite.id)
+        writeNullableString(geocacheLite.name)
+        writeNullableString(geocacheLite.code)
+        writeString(geocacheLite.url)
+        writeNullableBoolean(geocacheLite.isPremiumOnly)
+    }
+
+    /**
+     * Reads a lite geocache.
+     * @param input Input to read from.
+     * @return Lite geocache.
+     * @throws [IOException] If the input can not be read.
+     */
+    @Throws(IOException::class)
+    fun readLite(input: DataInput) = with(input) {
+        GeocacheLite(readNullableLong(), readNullableString(), readNullableString(), readString(), readNullableBoolean())
+    }
+
+    private fun DataOutput.writeString(value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        writeInt(bytes.size)
+        write(bytes)
+    }
+
+    private fun DataInput.readString(): String {
+        val bytes = ByteArray(readInt())
+        readFully(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    private inline fun <T> DataOutput.writeNullable(value: T?, write: DataOutput.(T) -> Unit) {
+        writeBoolean(value!=null)
+        if(value!=null) write(value)
+    }
+
+    private inline fun <T> DataInput.readNullable(read: DataInput.() -> T): T? = if(readBoolean()) read() else null
+
+    private inline fun <T> DataOutput.writeNullableList(values: List<T>?, write: DataOutput.(T) -> Unit) = writeNullable(values) {
+        writeInt(it.size)
+        it.forEach { value -> write(value) }
+    }
+
+    private inline fun <T> DataInput.readNullableList(read: DataInput.() -> T): List<T>? = readNullable { List(readInt()) { read() } }
+
+    private fun DataOutput.writeNullableString(value: String?) = writeNullable(value) { writeString(it) }
+
+    private fun DataInput.readNullableString() = readNullable { readString() }
+
+    private fun DataOutput.writeNullableLong(value: Long?) = writeNullable(value) { writeLong(it) }
+
+    private fun DataInput.readNullableLong() = readNullable { readLong() }
+
+    private fun DataOutput.writeNullableInt(value: Int?) = writeNullable(value) { writeInt(it) }
+
+    private fun DataOutput.writeNullableDouble(value: Double?) = writeNullable(value) { writeDouble(it) }
+
+    private fun DataOutput.writeNullableBoolean(value: Boolean?) = writeNullable(value) { writeBoolean(it) }
+
+    private fun DataInput.readNullableBoolean() = readNullable { readBoolean() }
+
+    private fun DataOutput.writeNullableEnum(value: Enum<*>?) = writeNullable(value) { writeUTF(it.name) }
+
+    private fun DataOutput.writeNullableCoordinates(value: Coordinates?) = writeNullable(value) {
+        writeDouble(it.latitude)
+        writeDouble(it.longitude)
+    }
+
+    private fun DataInput.readNullableCoordinates() = readNullable { Coordinates(readDouble(), readDouble()) }
+
+    private fun DataOutput.writeImage(image: Image) {
+        writeString(image.uri)
+        writeNullableString(image.guid)
+        writeNullableString(image.title)
+        writeNullableString(image.description)
+    }
+
+    private fun DataInput.readImage() = Image(readString(), readNullableString(), readNullableString(), readNullableString())
+}
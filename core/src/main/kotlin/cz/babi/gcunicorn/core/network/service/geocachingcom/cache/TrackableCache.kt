@@ -0,0 +1,209 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.cache
+
+import cz.babi.gcunicorn.`fun`.logger
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import org.slf4j.Logger
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+
+/**
+ * Cache of trackables' details by their GUIDs.
+ *
+ * Trackables travel between caches, so the same trackable is usually found in many caches of one area. The cache keeps
+ * the least recently used details up to given count. Concurrent lookups of the same trackable share one download.
+ *
+ * @param file File to persist the cache into by [save]. Pass null to keep the cache in memory only.
+ * @param maxCount Max count of cached trackables.
+ * @throws [IllegalArgumentException] If max count is not positive.
+ * @since 3.1.0
+ */
+class TrackableCache(private val file: File? = null, private val maxCount: Int = DEFAULT_MAX_COUNT) {
+
+    companion object {
+        private val LOG: Logger = logger<TrackableCache>()
+
+        /** Default max count of cached trackables. */
+        const val DEFAULT_MAX_COUNT = 10_000
+
+        private const val FORMAT_VERSION = 1
+    }
+
+    /**
+     * Details of a trackable which are not part of geocache's page.
+     *
+     * @param code Code of the trackable.
+     * @param id ID of the trackable.
+     */
+    data class Details(
+            val code: String?,
+            val id: Long?
+    )
+
+    private val lock = Any()
+
+    /** Cached details, ordered from the least recently used one. */
+    private val entries = object : LinkedHashMap<String, Details>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Details>?) = size > maxCount
+    }
+
+    /** Downloads in progress by GUIDs of trackables. */
+    private val inFlight = mutableMapOf<String, CompletableDeferred<Details?>>()
+
+    /** Whether there are entries which have not been saved yet. */
+    private var modified = false
+
+    init {
+        require(maxCount > 0) { "Max count has to be positive number." }
+
+        if(file!=null && file.isFile) {
+            try {
+                DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                    val version = input.readInt()
+                    if(version!=FORMAT_VERSION) throw IOException("Unsupported version of cached trackables: $version.")
+
+                    repeat(input.readInt()) {
+                        val guid = input.readUTF()
+                        val code = if(input.readBoolean()) input.readUTF() else null
+                        val id = if(input.readBoolean()) input.readLong() else null
+                        entries[guid] = Details(code, id)
+                    }
+                }
+            } catch(e: IOException) {
+                LOG.warn("Can not read cached trackables from '{}'.", file, e)
+                entries.clear()
+            }
+        }
+    }
+
+    /**
+     * Returns details of given trackable. Details are loaded by given loader if they are not cached yet. If the same
+     * trackable is being loaded already, the running download is awaited instead. If the download is cancelled, one of
+     * the waiting lookups takes it over.
+     * @param guid GUID of the trackable.
+     * @param loader Loader of the details. Loaded details are cached unless they are null.
+     * @return Details of the trackable or null if the loader has not found them.
+     */
+    suspend fun get(guid: String, loader: suspend (String) -> Details?): Details? {
+        while(true) {
+            val (download, owner) = synchronized(lock) {
+                entries[guid]?.let { return it }
+
+                inFlight[guid]?.let { it to false } ?: (CompletableDeferred<Details?>().also { inFlight[guid] = it } to true)
+            }
+
+            if(!owner) {
+                // Throws only if this lookup itself is cancelled.
+                download.join()
+
+                try {
+                    return download.await()
+                } catch(e: CancellationException) {
+                    // The owner of the download has been cancelled, so the lookup is tried again.
+                    continue
+                }
+            }
+
+            try {
+                val details = loader(guid)
+
+                synchronized(lock) {
+                    if(details!=null) {
+                        entries[guid] = details
+                        modified = true
+                    }
+                    inFlight.remove(guid)
+                }
+                download.complete(details)
+
+                return details
+            } catch(e: CancellationException) {
+                synchronized(lock) { inFlight.remove(guid) }
+                download.cancel(e)
+
+                throw e
+            } catch(e: Throwable) {
+                synchronized(lock) { inFlight.remove(guid) }
+                download.completeExceptionally(e)
+
+                throw e
+            }
+        }
+    }
+
+    /**
+     * Returns count of cached trackables.
+     */
+    fun size() = synchronized(lock) { entries.size }
+
+    /**
+     * Removes all cached trackables.
+     */
+    fun clear() = synchronized(lock) {
+        entries.clear()
+        modified = true
+    }
+
+    /**
+     * Saves cached trackables into the file given in constructor. Nothing happens if there is no file or there is no change
+     * since last save.
+     */
+    fun save() {
+        if(file==null) return
+
+        val snapshot = synchronized(lock) {
+            if(!modified) return
+            modified = false
+            entries.toList()
+        }
+
+        val temporaryFile = File(file.path + ".tmp")
+        try {
+            file.parentFile?.mkdirs()
+
+            DataOutputStream(BufferedOutputStream(FileOutputStream(temporaryFile))).use { output ->
+                output.writeInt(FORMAT_VERSION)
+                output.writeInt(snapshot.size)
+                snapshot.forEach { (guid, details) ->
+                    output.writeUTF(guid)
+                    output.writeBoolean(details.code!=null)
+                    details.code?.let { output.writeUTF(it) }
+                    output.writeBoolean(details.id!=null)
+                    details.id?.let { output.writeLong(it) }
+                }
+            }
+
+            if(!temporaryFile.renameTo(file) && !(file.delete() && temporaryFile.renameTo(file))) {
+                throw IOException("Can not rename '$temporaryFile' to '$file'.")
+            }
+        } catch(e: IOException) {
+            LOG.warn("Can not save cached trackables into '{}'.", file, e)
+            temporaryFile.delete()
+            synchronized(lock) { modified = true }
+        }
+    }
+}
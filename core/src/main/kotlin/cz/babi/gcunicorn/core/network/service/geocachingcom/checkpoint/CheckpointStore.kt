@@ -0,0 +1,88 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint
+
+import cz.babi.gcunicorn.`fun`.logger
+import org.slf4j.Logger
+import java.io.File
+import java.security.MessageDigest
+
+/**
+ * Directory of search checkpoints.
+ *
+ * A checkpoint is identified by a key describing the search, so the same search resumes from its checkpoint. Checkpoints
+ * not touched for longer than given time are removed once the store is created, as their geocaches may be outdated.
+ *
+ * @param directory Directory to store checkpoints in. It is created if it does not exist.
+ * @param maxAge Time in milliseconds an untouched checkpoint is kept for.
+ * @throws [IllegalArgumentException] If max age is negative.
+ * @since 3.1.0
+ */
+class CheckpointStore(private val directory: File, private val maxAge: Long = DEFAULT_MAX_AGE) {
+
+    companion object {
+        private val LOG: Logger = logger<CheckpointStore>()
+
+        /** Default max age of a checkpoint. */
+        const val DEFAULT_MAX_AGE = 24L * 60 * 60 * 1000
+
+        private const val EXTENSION = ".checkpoint"
+    }
+
+    init {
+        require(maxAge >= 0) { "Max age can not be negative number." }
+
+        if(!directory.isDirectory && !directory.mkdirs()) {
+            LOG.warn("Can not create checkpoint directory '{}'.", directory)
+        }
+
+        removeExpired()
+    }
+
+    /**
+     * Opens checkpoint of given search. An expired checkpoint is started over.
+     * @param key Key describing the search, e.g. its user and parameters.
+     * @return Checkpoint of the search.
+     */
+    fun open(key: String): SearchCheckpoint {
+        val file = File(directory, fileName(key))
+        if(isExpired(file)) file.delete()
+
+        return SearchCheckpoint(file)
+    }
+
+    /**
+     * Removes checkpoints not touched for longer than max age.
+     */
+    fun removeExpired() {
+        directory.listFiles { file -> file.name.endsWith(EXTENSION) && isExpired(file) }?.forEach {
+            LOG.debug("Removing expired checkpoint '{}'.", it)
+            it.delete()
+        }
+    }
+
+    private fun isExpired(file: File) = file.exists() && System.currentTimeMillis() - file.lastModified() > maxAge
+
+    /**
+     * Creates file name of given key. Keys may contain characters not allowed in file names, so their hash is used.
+     */
+    private fun fileName(key: String) = MessageDigest.getInstance("SHA-1")
+            .digest(key.toByteArray(Charsets.UTF_8))
+            .joinToString("", postfix = EXTENSION) { "%02x".format(it) }
+}
@@ -0,0 +1,266 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.GeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.GeocacheCodec
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheLite
+import cz.babi.gcunicorn.`fun`.logger
+import org.slf4j.Logger
+import java.io.BufferedOutputStream
+import java.io.ByteArrayInputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.RandomAccessFile
+
+/**
+ * Checkpoint of a search. It allows to resume the search once the process has been stopped.
+ *
+ * Progress of the search is appended to given file while the search goes: state of paging through search results with
+ * found caches, and every fully loaded geocache. A resumed search continues paging from the last stored state and takes
+ * loaded geocaches from the checkpoint instead of downloading them again. A damaged record at the end of the file, e.g.
+ * written while the process was being killed, is dropped.
+ *
+ * Failure of writing the checkpoint does not fail the search, the checkpoint just stops recording.
+ *
+ * @param file File the checkpoint is stored in. Checkpoint stored in the file before is loaded.
+ * @since 3.1.0
+ */
+class SearchCheckpoint(private val file: File) {
+
+    /**
+     * State of paging through search results.
+     *
+     * @param pageLimit Count of results taken by the next page.
+     * @param pageSkip Count of results skipped by the next page.
+     * @param skipped Count of results the next search should skip.
+     * @param finished True if all pages have been loaded.
+     * @param caches Acceptable caches found so far.
+     */
+    data class PagingState(
+            val pageLimit: Int,
+            val pageSkip: Int,
+            val skipped: Int,
+            val finished: Boolean,
+            val caches: List<GeocacheLite>
+    )
+
+    companion object {
+        private val LOG: Logger = logger<SearchCheckpoint>()
+
+        /** Version of the file format. It has to be raised whenever the format changes, including the format of [GeocacheCodec]. */
+        private const val FORMAT_VERSION = 2
+
+        private const val RECORD_PAGE = 1
+        private const val RECORD_GEOCACHE = 2
+    }
+
+    /** States of paging by count of results skipped when the paging started. */
+    private val pagingStates = HashMap<Int, PagingState>()
+    private val geocaches = HashMap<String, Geocache>()
+    private var output: DataOutputStream? = null
+    private var failed = false
+
+    init {
+        load()
+    }
+
+    /**
+     * Count of loaded geocaches stored in the checkpoint.
+     */
+    val geocacheCount @Synchronized get() = geocaches.size
+
+    /**
+     * Returns stored state of paging.
+     * @param skip Count of results skipped when the paging started.
+     * @return State of the paging or null if there is no such one.
+     */
+    @Synchronized
+    fun getPagingState(skip: Int) = pagingStates[skip]
+
+    /**
+     * Returns stored geocache.
+     * @param code Code of the geocache.
+     * @return Geocache or null if it has not been loaded yet.
+     */
+    @Synchronized
+    fun getGeocache(code: String) = geocaches[code]
+
+    /**
+     * Stores state of paging once a page has been loaded.
+     * @param skip Count of results skipped when the paging started.
+     * @param pageLimit Count of results taken by the next page.
+     * @param pageSkip Count of results skipped by the next page.
+     * @param skipped Count of results the next search should skip.
+     * @param finished True if all pages have been loaded.
+     * @param caches Acceptable caches found on the page.
+     */
+    @Synchronized
+    fun pageLoaded(skip: Int, pageLimit: Int, pageSkip: Int, skipped: Int, finished: Boolean, caches: List<GeocacheLite>) {
+        val state = PagingState(pageLimit, pageSkip, skipped, finished, pagingStates[skip]?.caches.orEmpty() + caches)
+        pagingStates[skip] = state
+
+        append(RECORD_PAGE) {
+            writeInt(skip)
+            writeInt(pageLimit)
+            writeInt(pageSkip)
+            writeInt(skipped)
+            writeBoolean(finished)
+            writeInt(caches.size)
+            caches.forEach { GeocacheCodec.writeLite(it, this) }
+        }
+    }
+
+    /**
+     * Stores loaded geocache.
+     * @param geocache Fully loaded geocache. Geocache without code is not stored.
+     */
+    @Synchronized
+    fun geocacheLoaded(geocache: Geocache) {
+        val code = geocache.code ?: return
+        if(geocaches.put(code, geocache)!=null) return
+
+        append(RECORD_GEOCACHE) {
+            GeocacheCodec.write(code, GeocacheCache.Entry(geocache, System.currentTimeMillis(), null), this)
+        }
+    }
+
+    /**
+     * Closes the file. The checkpoint can be still read, but any other change opens the file again.
+     */
+    @Synchronized
+    fun close() {
+        try {
+            output?.close()
+        } catch(e: IOException) {
+            LOG.warn("Can not close checkpoint '{}'.", file, e)
+        }
+
+        output = null
+    }
+
+    /**
+     * Deletes the checkpoint. It should be called once the search has finished and its result is stored.
+     */
+    @Synchronized
+    fun delete() {
+        close()
+        pagingStates.clear()
+        geocaches.clear()
+        failed = true
+
+        if(file.exists() && !file.delete()) LOG.warn("Can not delete checkpoint '{}'.", file)
+    }
+
+    private fun append(type: Int, write: DataOutputStream.() -> Unit) {
+        if(failed) return
+
+        try {
+            val output = output ?: openOutput().also { output = it }
+            output.writeInt(type)
+            output.write()
+            output.flush()
+        } catch(e: IOException) {
+            LOG.warn("Can not write checkpoint '{}'. Progress of the search will not be stored anymore.", file, e)
+            failed = true
+            close()
+        }
+    }
+
+    private fun openOutput(): DataOutputStream {
+        file.parentFile?.mkdirs()
+        val isNew = file.length()==0L
+
+        return DataOutputStream(BufferedOutputStream(FileOutputStream(file, true))).apply {
+            if(isNew) writeInt(FORMAT_VERSION)
+        }
+    }
+
+    /**
+     * Loads records of the checkpoint. The file is truncated after the last complete record.
+     */
+    private fun load() {
+        if(!file.isFile || file.length()==0L) return
+
+        val bytes = try {
+            file.readBytes()
+        } catch(e: IOException) {
+            LOG.warn("Can not read checkpoint '{}'. It is started over.", file, e)
+            file.delete()
+            return
+        }
+
+        val stream = ByteArrayInputStream(bytes)
+        val input = DataInputStream(stream)
+        var validLength = 0L
+
+        try {
+            val version = input.readInt()
+            if(version!=FORMAT_VERSION) {
+                LOG.info("Checkpoint '{}' has unsupported version {}. It is started over.", file, version)
+                file.delete()
+                return
+            }
+            validLength = (bytes.size - stream.available()).toLong()
+
+            while(stream.available() > 0) {
+                when(val type = input.readInt()) {
+                    RECORD_PAGE -> {
+                        val skip = input.readInt()
+                        val pageLimit = input.readInt()
+                        val pageSkip = input.readInt()
+                        val skipped = input.readInt()
+                        val finished = input.readBoolean()
+                        val caches = List(input.readInt()) { GeocacheCodec.readLite(input) }
+
+                        pagingStates[skip] = PagingState(pageLimit, pageSkip, skipped, finished, pagingStates[skip]?.caches.orEmpty() + caches)
+                    }
+                    RECORD_GEOCACHE -> {
+                        val (code, entry) = GeocacheCodec.read(input)
+                        geocaches[code] = entry.geocache
+                    }
+                    else -> throw IOException("Unknown record type: $type.")
+                }
+
+                validLength = (bytes.size - stream.available()).toLong()
+            }
+        } catch(e: Exception) {
+            LOG.warn("Checkpoint '{}' is damaged. Its valid part of {} bytes is kept.", file, validLength, e)
+
+            try {
+                if(validLength==0L) {
+                    file.delete()
+                } else {
+                    RandomAccessFile(file, "rw").use { it.setLength(validLength) }
+                }
+            } catch(e: IOException) {
+                LOG.warn("Can not truncate checkpoint '{}'. It is started over.", file, e)
+                pagingStates.clear()
+                geocaches.clear()
+                file.delete()
+            }
+        }
+
+        LOG.debug("Checkpoint '{}' has been loaded with {} paging states and {} geocaches.", file, pagingStates.size, geocaches.size)
+    }
+}
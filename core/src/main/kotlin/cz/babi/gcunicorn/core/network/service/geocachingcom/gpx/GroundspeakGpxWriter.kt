@@ -0,0 +1,224 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.gpx
+
+import cz.babi.gcunicorn.core.network.service.GpxWriter
+import cz.babi.gcunicorn.core.network.service.geocachingcom.Constant
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.`fun`.containsHtml
+import cz.babi.gcunicorn.`fun`.rot13
+import java.text.SimpleDateFormat
+import java.util.*
+
+/**
+ * [GpxWriter] emitting GPX v1.1 with Groundspeak v1.0.1 and GSAK v1.6 extensions.
+ *
+ * @param output Output to write to.
+ * @param formatOutput Pass true if the output should be formatted. Otherwise pass false.
+ * @since 3.1.0
+ */
+internal class GroundspeakGpxWriter(output: Appendable, formatOutput: Boolean) : GpxWriter {
+
+    companion object {
+        private const val NS_GPX = "http://www.topografix.com/GPX/1/1"
+        private const val NS_GROUNDSPEAK = "http://www.groundspeak.com/cache/1/0/1"
+        private const val NS_GSAK = "http://www.gsak.net/xmlv1/6"
+    }
+
+    private val xml = XmlWriter(output, formatOutput)
+    private val dateFormat = SimpleDateFormat(Constant.PATTERN_DATE_GPX, Locale.US)
+    private var finished = false
+
+    init {
+        xml.declaration()
+                .startElement("gpx")
+                .attribute("version", "1.1")
+                .attribute("creator", "gcUnicorn")
+                .attribute("xmlns", NS_GPX)
+                .attribute("xmlns:groundspeak", NS_GROUNDSPEAK)
+                .attribute("xmlns:gsak", NS_GSAK)
+                .element("metadata") {
+                    element("author", "gcUnicorn")
+                    element("time", dateFormat.format(Date()))
+                }
+    }
+
+    override fun write(geocache: Geocache) {
+        check(!finished) { "GPX document has been already finished." }
+        val coordinates = geocache.coordinates ?: return
+
+        xml.element("wpt") {
+            attribute("lat", coordinates.latitude)
+            attribute("lon", coordinates.longitude)
+            geocache.hiddenDate?.let { element("time", dateFormat.format(Date(it))) }
+            geocache.code?.let { element("name", it) }
+            geocache.name?.let { element("desc", it) }
+            // Link is created from geocache's code.
+            geocache.code?.let {
+                element("link") {
+                    element("href", Constant.URI_CACHE_SHORT.plus(it))
+                    geocache.name?.let { element("text", it) }
+                }
+            }
+            geocache.found?.let { element("sym", if(it) "Geocache Found" else "Geocache") }
+            geocache.type?.let { element("type", "Geocache|${it.id}") }
+            writeGroundspeakCache(geocache)
+            writeGsakExtension(geocache)
+        }
+
+        geocache.waypoints?.forEach { waypoint ->
+            val code = geocache.code ?: return@forEach
+
+            xml.element("wpt") {
+                waypoint.coordinates?.let {
+                    attribute("lat", it.latitude)
+                    attribute("lon", it.longitude)
+                }
+                waypoint.prefix?.let { element("name", it + code.substring(2)) }
+                waypoint.note?.let { element("cmt", it) }
+                waypoint.name?.let { element("desc", it) }
+                waypoint.type?.let {
+                    element("sym", it.type)
+                    element("type", "Waypoint|${it.type}")
+                }
+                element("gsak:wptExtension") {
+                    element("gsak:Parent", code)
+                }
+            }
+        }
+    }
+
+    override fun finish() {
+        check(!finished) { "GPX document has been already finished." }
+        xml.endElement()
+        finished = true
+    }
+
+    private fun writeGroundspeakCache(geocache: Geocache) = xml.element("groundspeak:cache") {
+        geocache.id?.let { attribute("id", it) }
+        geocache.isDisabled?.let { attribute("available", !it) }
+        geocache.isArchived?.let { attribute("archived", it) }
+
+        geocache.name?.let { element("groundspeak:name", it) }
+        geocache.ownerName?.let { element("groundspeak:placed_by", it) }
+        geocache.ownerId?.let { element("groundspeak:owner", it) }
+        geocache.type?.let { element("groundspeak:type", it.id) }
+        geocache.sizeType?.let { element("groundspeak:container", it.id) }
+        geocache.attributes?.let {
+            element("groundspeak:attributes") {
+                it.forEach { cacheAttribute ->
+                    element("groundspeak:attribute") {
+                        attribute("id", cacheAttribute.type.id)
+                        attribute("inc", if(cacheAttribute.enabled) "1" else "0")
+                    }
+                }
+            }
+        }
+        geocache.difficulty?.let { element("groundspeak:difficulty", it.toString()) }
+        geocache.terrain?.let { element("groundspeak:terrain", it.toString()) }
+        geocache.getCountry()?.let { element("groundspeak:country", it) }
+        geocache.getState()?.let { element("groundspeak:state", it) }
+        geocache.shortDescription?.let {
+            element("groundspeak:short_description") {
+                attribute("html", if(it.containsHtml()) "true" else "false")
+                text(it)
+            }
+        }
+        geocache.longDescription?.let {
+            element("groundspeak:long_description") {
+                attribute("html", if(it.containsHtml()) "true" else "false")
+                text(it)
+            }
+        }
+        geocache.hint?.let { element("groundspeak:encoded_hints", it.rot13()) }
+        geocache.logEntries?.let {
+            element("groundspeak:logs") {
+                it.forEach { logEntry ->
+                    element("groundspeak:log") {
+                        logEntry.id?.let { attribute("id", it) }
+                        logEntry.visited?.let { element("groundspeak:date", dateFormat.format(Date(it))) }
+                        logEntry.type?.let { element("groundspeak:type", it.type) }
+                        logEntry.author?.let {
+                            element("groundspeak:finder") {
+                                logEntry.authorId?.let { attribute("id", it) }
+                                text(it)
+                            }
+                        }
+                        logEntry.text?.let {
+                            element("groundspeak:text") {
+                                attribute("encoded", "False")
+                                text(it)
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        geocache.inventory?.let {
+            element("groundspeak:travelbugs") {
+                it.forEach { trackable ->
+                    element("groundspeak:travelbug") {
+                        trackable.id?.let { attribute("id", it) }
+                        trackable.code?.let { attribute("ref", it) }
+                        trackable.name?.let { element("groundspeak:name", it) }
+                    }
+                }
+            }
+        }
+    }
+
+    private fun writeGsakExtension(geocache: Geocache) = xml.element("gsak:wptExtension") {
+        geocache.onWatchList?.let { element("gsak:Watch", it.toString()) }
+        geocache.found?.let { element("gsak:Found", it.toString()) }
+        geocache.isPremiumOnly?.let { element("gsak:IsPremium", it.toString()) }
+        geocache.favoriteCount?.let { element("gsak:FavPoints", it.toString()) }
+        geocache.personalNote?.let { element("gsak:GcNote", it) }
+        geocache.guid?.let { element("gsak:Guid", it) }
+        geocache.spoilers?.let {
+            element("gsak:CacheImages") {
+                it.forEach { image ->
+                    element("gsak:CacheImage") {
+                        image.title?.let { element("gsak:iname", it) }
+                        image.description?.let { element("gsak:idescription", it) }
+                        image.guid?.let { element("gsak:iguid", it) }
+                        element("gsak:iimage", image.uri)
+                    }
+                }
+            }
+        }
+        geocache.logEntries?.let { logEntries ->
+            if(logEntries.none { logEntry -> logEntry.images != null }) return@let
+
+            element("gsak:LogImages") {
+                logEntries.forEach logEntry@ { logEntry ->
+                    val logId = logEntry.id ?: return@logEntry
+                    logEntry.images?.forEach { logImage ->
+                        element("gsak:LogImage") {
+                            element("gsak:ilogid", logId.toString())
+                            logImage.title?.let { element("gsak:iname", it) }
+                            logImage.description?.let { element("gsak:idescription", it) }
+                            logImage.guid?.let { element("gsak:iguid", it) }
+                            element("gsak:iimage", logImage.uri)
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.gpx
+
+/**
+ * Minimal forward-only XML writer.
+ *
+ * Everything is written straight to the output, only names of open elements are kept. Text and attribute values are
+ * escaped and characters not allowed by XML 1.0 specification are dropped while they are written, so no post
+ * processing of the whole document is needed.
+ *
+ * @param output Output to write to.
+ * @param formatOutput Pass true if elements should be indented. Elements containing text only are kept on one line.
+ * @since 3.1.0
+ */
+internal class XmlWriter(private val output: Appendable, private val formatOutput: Boolean) {
+
+    companion object {
+        private const val INDENT = "\t"
+    }
+
+    private val openElements = ArrayList<String>()
+    /** Whether start tag of the innermost open element still waits for its closing bracket. */
+    private var startTagOpen = false
+    /** Whether the innermost open element already contains a child element. */
+    private var hasChildElements = false
+    private var empty = true
+
+    /**
+     * Writes XML declaration. It has to be called before anything else is written.
+     * @return This writer.
+     */
+    fun declaration(): XmlWriter {
+        check(empty) { "Declaration has to be written first." }
+        output.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+        empty = false
+        return this
+    }
+
+    /**
+     * Writes start tag of an element. Attributes can be written until any content of the element is written.
+     * @param name Name of the element.
+     * @return This writer.
+     */
+    fun startElement(name: String): XmlWriter {
+        closeStartTag()
+        if(formatOutput && !empty) newLine(openElements.size)
+        output.append('<').append(name)
+        openElements.add(name)
+        startTagOpen = true
+        hasChildElements = false
+        empty = false
+        return this
+    }
+
+    /**
+     * Writes attribute of the element whose start tag has been just written.
+     * @param name Name of the attribute.
+     * @param value Value of the attribute.
+     * @return This writer.
+     */
+    fun attribute(name: String, value: Any): XmlWriter {
+        check(startTagOpen) { "Attribute '$name' has to follow start tag." }
+        output.append(' ').append(name).append("=\"")
+        escape(value.toString(), true)
+        output.append('"')
+        return this
+    }
+
+    /**
+     * Writes text content of the innermost open element.
+     * @param value Text to write.
+     * @return This writer.
+     */
+    fun text(value: String): XmlWriter {
+        check(openElements.isNotEmpty()) { "Text has to be written within an element." }
+        closeStartTag()
+        escape(value, false)
+        return this
+    }
+
+    /**
+     * Writes end tag of the innermost open element. Element without any content is written as empty-element tag.
+     * @return This writer.
+     */
+    fun endElement(): XmlWriter {
+        check(openElements.isNotEmpty()) { "There is no open element." }
+        val name = openElements.removeAt(openElements.size - 1)
+        if(startTagOpen) {
+            output.append("/>")
+            startTagOpen = false
+        } else {
+            if(formatOutput && hasChildElements) newLine(openElements.size)
+            output.append("</").append(name).append('>')
+        }
+        hasChildElements = true
+        return this
+    }
+
+    /**
+     * Writes whole element containing given text.
+     * @param name Name of the element.
+     * @param value Text of the element.
+     * @return This writer.
+     */
+    fun element(name: String, value: String) = startElement(name).text(value).endElement()
+
+    /**
+     * Writes whole element. Content of the element is written by given block.
+     * @param name Name of the element.
+     * @param block Block writing attributes and content of the element.
+     * @return This writer.
+     */
+    inline fun element(name: String, block: XmlWriter.() -> Unit): XmlWriter {
+        startElement(name)
+        block()
+        return endElement()
+    }
+
+    private fun closeStartTag() {
+        if(startTagOpen) {
+            output.append('>')
+            startTagOpen = false
+        }
+    }
+
+    private fun newLine(depth: Int) {
+        output.append('\n')
+        repeat(depth) { output.append(INDENT) }
+    }
+
+    /**
+     * Writes escaped value. Runs of characters which need no escaping are appended at once.
+     * Unpaired surrogates and characters not allowed by XML 1.0 specification are dropped.
+     */
+    private fun escape(value: String, attribute: Boolean) {
+        var runStart = 0
+        var i = 0
+        while(i < value.length) {
+            val c = value[i]
+            val replacement = when {
+                c=='&' -> "&amp;"
+                c=='<' -> "&lt;"
+                c=='>' -> "&gt;"
+                c=='"' && attribute -> "&quot;"
+                c.isHighSurrogate() && i + 1 < value.length && value[i + 1].isLowSurrogate() -> {
+                    i += 2
+                    continue
+                }
+                isAllowed(c) -> {
+                    i++
+                    continue
+                }
+                else -> ""
+            }
+            output.append(value, runStart, i).append(replacement)
+            runStart = ++i
+        }
+        output.append(value, runStart, value.length)
+    }
+
+    /** Checks whether given non-surrogate-pair character is allowed by XML 1.0 specification. */
+    private fun isAllowed(c: Char) = c=='\t' || c=='\n' || c=='\r' || c in '\u0020'..'\uD7FF' || c in '\uE000'..'\uFFFD'
+}
@@ -27,7 +27,8 @@ package cz.babi.gcunicorn.core.network.service.geocachingcom.model
  * * include disabled caches,
  * * exclude own caches,
  * * exclude found caches,
- * * skip premium caches.
+ * * skip premium caches,
+ * * sections of geocaches' details to load.
  *
  * @param allowedCacheTypes List of allowed cache types. Default value is empty list.
  * @param maxDistance Max distance in km. Default value is [DISABLED_DISTANCE].
@@ -35,6 +36,7 @@ package cz.babi.gcunicorn.core.network.service.geocachingcom.model
  * @param excludeOwn Whether own caches should be excluded or not. Default value is true.
  * @param excludeFound Whether already found caches should be excluded or not. Default value is true.
  * @param skipPremium Whether premium caches should be skipped. Default value is true.
+ * @param sections Sections of geocaches' details to load. Sections left out are neither downloaded nor parsed. Default value is all sections.
  *
  * @since 1.0.0
  */
@@ -44,7 +46,8 @@ data class CacheFilter(
         val allowDisabled: Boolean = false,
         val excludeOwn: Boolean = true,
         val excludeFound: Boolean = true,
-        val skipPremium: Boolean = true
+        val skipPremium: Boolean = true,
+        val sections: Set<GeocacheSection> = GeocacheSection.values().toSet()
 ) {
     companion object {
         const val DISABLED_DISTANCE = -1.0
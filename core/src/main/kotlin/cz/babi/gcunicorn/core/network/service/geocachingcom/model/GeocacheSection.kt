@@ -0,0 +1,36 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.model
+
+/**
+ * Optional sections of geocache's details. Each of them costs extra sub-requests or parsing, so a search can skip the
+ * ones it does not need, see [CacheFilter.sections].
+ *
+ * @since 3.1.0
+ */
+enum class GeocacheSection {
+    /** Log entries. They are downloaded page by page from the logbook. */
+    LOGBOOK,
+    /** Cache's inventory. Details of every trackable are downloaded from its own page. */
+    TRACKABLES,
+    /** Spoiler images. */
+    SPOILERS,
+    /** Additional waypoints. */
+    WAYPOINTS
+}
@@ -0,0 +1,133 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+/**
+ * Aho-Corasick automaton looking for many literal anchors at once.
+ *
+ * The automaton is compiled into a dense transition table, so one step costs a single array lookup
+ * regardless of count of anchors. Only ASCII anchors are supported, any other character resets the automaton.
+ *
+ * @param anchors Anchors to look for. Index of an anchor in this list is its id.
+ * @throws [IllegalArgumentException] If any anchor is empty or contains non ASCII character.
+ * @since 3.1.0
+ */
+internal class AnchorAutomaton(private val anchors: List<String>) {
+
+    companion object {
+        /** Initial state of the automaton. */
+        const val INITIAL_STATE = 0
+
+        private const val ASCII_SIZE = 128
+        private val NO_OUTPUT = IntArray(0)
+    }
+
+    /** Maps ASCII character to its column in transition table. Column 0 is used for characters not present in any anchor. */
+    private val columns = IntArray(ASCII_SIZE)
+    private val columnCount: Int
+    private val transitions: IntArray
+    private val outputs: Array<IntArray>
+
+    init {
+        anchors.forEach { anchor ->
+            require(anchor.isNotEmpty()) { "Anchor can not be empty." }
+            require(anchor.all { it.code < ASCII_SIZE }) { "Anchor '$anchor' contains non ASCII character." }
+        }
+
+        var nextColumn = 1
+        anchors.forEach { anchor ->
+            anchor.forEach { c ->
+                if(columns[c.code]==0) columns[c.code] = nextColumn++
+            }
+        }
+        columnCount = nextColumn
+
+        // Build the trie.
+        val gotos = mutableListOf(IntArray(columnCount) { -1 })
+        val trieOutputs = mutableListOf(mutableListOf<Int>())
+        anchors.forEachIndexed { id, anchor ->
+            var state = INITIAL_STATE
+            anchor.forEach { c ->
+                val column = columns[c.code]
+                if(gotos[state][column]==-1) {
+                    gotos.add(IntArray(columnCount) { -1 })
+                    trieOutputs.add(mutableListOf())
+                    gotos[state][column] = gotos.size - 1
+                }
+                state = gotos[state][column]
+            }
+            trieOutputs[state].add(id)
+        }
+
+        // Compute failure links breadth-first and turn the trie into a complete transition table.
+        val failures = IntArray(gotos.size)
+        val queue = ArrayDeque<Int>()
+        for(column in 0 until columnCount) {
+            val child = gotos[INITIAL_STATE][column]
+            if(child==-1) {
+                gotos[INITIAL_STATE][column] = INITIAL_STATE
+            } else {
+                failures[child] = INITIAL_STATE
+                queue.addLast(child)
+            }
+        }
+        while(queue.isNotEmpty()) {
+            val state = queue.removeFirst()
+            trieOutputs[state].addAll(trieOutputs[failures[state]])
+            for(column in 0 until columnCount) {
+                val child = gotos[state][column]
+                if(child==-1) {
+                    gotos[state][column] = gotos[failures[state]][column]
+                } else {
+                    failures[child] = gotos[failures[state]][column]
+                    queue.addLast(child)
+                }
+            }
+        }
+
+        transitions = IntArray(gotos.size * columnCount)
+        gotos.forEachIndexed { state, row -> row.copyInto(transitions, state * columnCount) }
+        outputs = Array(gotos.size) { state -> if(trieOutputs[state].isEmpty()) NO_OUTPUT else trieOutputs[state].toIntArray() }
+    }
+
+    /**
+     * Moves the automaton by one character.
+     * @param state Current state.
+     * @param c Next character of the input.
+     * @return New state.
+     */
+    fun step(state: Int, c: Char): Int {
+        val code = c.code
+        return if(code < ASCII_SIZE) transitions[state * columnCount + columns[code]] else INITIAL_STATE
+    }
+
+    /**
+     * Returns ids of all anchors ending at given state.
+     * @param state State to check.
+     * @return Ids of anchors. Empty array if there is no anchor ending at given state.
+     */
+    fun outputs(state: Int): IntArray = outputs[state]
+
+    /**
+     * Returns length of an anchor.
+     * @param id Id of the anchor.
+     * @return Length of the anchor.
+     */
+    fun length(id: Int) = anchors[id].length
+}
@@ -0,0 +1,48 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+/**
+ * Geocache's detail page prepared for extraction of [PageField]s.
+ *
+ * @since 3.1.0
+ */
+interface GeocachePage {
+
+    /**
+     * Looks for the first match of given field.
+     * @param field Field to look for.
+     * @return The first match or null if the page does not contain given field.
+     */
+    fun find(field: PageField): MatchResult?
+
+    /**
+     * Looks for all non overlapping matches of given field.
+     * @param field Field to look for.
+     * @return Sequence of all matches.
+     */
+    fun findAll(field: PageField): Sequence<MatchResult>
+
+    /**
+     * Checks whether the page contains given field.
+     * @param field Field to look for.
+     * @return True if the page contains at least one match of given field.
+     */
+    fun containsMatchIn(field: PageField) = find(field)!=null
+}
@@ -0,0 +1,39 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+import cz.babi.gcunicorn.core.metrics.Metrics
+
+/**
+ * Page counting fields which have not been found in given page.
+ *
+ * Only [find] is counted. Flags checked by [containsMatchIn] are missing from most of the pages, so they are not misses.
+ * Growing count of misses of a field usually means geocaching.com has changed the page and the regular expression of
+ * the field has to be updated.
+ *
+ * @param page Page to look for fields in.
+ * @param metrics Metrics to count misses in, see [Metrics.PAGE_PARSE_MISSES].
+ * @since 3.1.0
+ */
+internal class MeteredGeocachePage(private val page: GeocachePage, private val metrics: Metrics) : GeocachePage by page {
+
+    override fun find(field: PageField) = page.find(field).also {
+        if(it==null) metrics.counter(Metrics.PAGE_PARSE_MISSES, "Fields not found in geocaches' pages.", "field" to field.name.lowercase()).increment()
+    }
+}
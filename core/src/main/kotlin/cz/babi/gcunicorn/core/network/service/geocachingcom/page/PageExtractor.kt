@@ -0,0 +1,49 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+import java.io.Reader
+
+/**
+ * Ways of extraction of fields from geocache's detail page.
+ *
+ * @since 3.1.0
+ */
+enum class PageExtractor {
+    /** Single pass anchor scanner working directly on the stream. See [StreamedGeocachePage]. */
+    STREAM {
+        override fun open(reader: Reader): GeocachePage = StreamedGeocachePage(reader)
+    },
+    /** Single pass anchor scanner. See [ScannedGeocachePage]. */
+    SCANNER {
+        override fun open(reader: Reader): GeocachePage = ScannedGeocachePage(reader.readText())
+    },
+    /** Regular expressions applied over the whole page. See [RegexGeocachePage]. */
+    REGEX {
+        override fun open(reader: Reader): GeocachePage = RegexGeocachePage(reader.readText())
+    };
+
+    /**
+     * Prepares given page for extraction. It reads given stream completely, but it does not close it.
+     * @param reader Stream of the page.
+     * @return Page ready for extraction.
+     * @throws [java.io.IOException] If given stream can not be read.
+     */
+    abstract fun open(reader: Reader): GeocachePage
+}
@@ -0,0 +1,73 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.Constant
+
+/**
+ * Fields parsed from geocache's detail page.
+ *
+ * Every field is described by its regular expression and by an anchor. The anchor is a literal every match of the
+ * regular expression starts with. It means the regular expression can match only at positions where the anchor occurs.
+ *
+ * @param regex Regular expression matching the field.
+ * @param anchor Literal prefix of every match of [regex].
+ * @since 3.1.0
+ */
+enum class PageField(val regex: Regex, val anchor: String) {
+    PREMIUM_ONLY(Constant.REGEX_CACHE_PREMIUM_ONLY, "<section class=\"premium-upgrade-widget\">"),
+    IS_DISABLED(Constant.REGEX_CACHE_IS_DISABLED, "<div id=\"ctl00_ContentBody_uxDisabledMessageBody\""),
+    IS_ARCHIVED(Constant.REGEX_CACHE_IS_ARCHIVED, "<div id=\"ctl00_ContentBody_archivedMessage\""),
+    IS_LOCKED(Constant.REGEX_CACHE_IS_LOCKED, "<div id=\"ctl00_ContentBody_lockedMessage\""),
+    IS_FAVORITE(Constant.REGEX_CACHE_IS_FAVORITE, "<div id=\"pnlFavoriteCache\">"),
+    NAME(Constant.REGEX_CACHE_NAME, "<span id=\"ctl00_ContentBody_CacheName\""),
+    CODE(Constant.REGEX_CACHE_CODE, "<span id=\"ctl00_ContentBody_CoordInfoLinkControl1_uxCoordInfoCode\""),
+    ID(Constant.REGEX_CACHE_ID, "/seek/log.aspx?ID="),
+    TYPE(Constant.REGEX_CACHE_TYPE, "<use xlink:href=\"/app/ui-icons/sprites/cache-types.svg#icon-"),
+    GUID(Constant.REGEX_CACHE_GUID, "&wid="),
+    WATCHLIST_COUNT(Constant.REGEX_CACHE_WATCHLIST_COUNT, "data-watchcount=\""),
+    TERRAIN(Constant.REGEX_CACHE_TERRAIN, "<span id=\"ctl00_ContentBody_Localize12\""),
+    DIFFICULTY(Constant.REGEX_CACHE_DIFFICULTY, "<span id=\"ctl00_ContentBody_uxLegendScale\""),
+    SIZE(Constant.REGEX_CACHE_SIZE, "/icons/container/"),
+    FAVORITE_COUNT(Constant.REGEX_CACHE_FAVORITE_COUNT, "<span class=\"favorite-value\">"),
+    OWNER_NAME(Constant.REGEX_CACHE_OWNER_NAME, "<div id=\"ctl00_ContentBody_mcd1\">"),
+    OWNER_ID(Constant.REGEX_CACHE_OWNER_ID, "<a href=\"/play/search?owner[0]="),
+    HIDDEN(Constant.REGEX_CACHE_HIDDEN, "ctl00_ContentBody_mcd2"),
+    COORDINATES(Constant.REGEX_CACHE_COORDINATES, "<span id=\"uxLatLon\""),
+    LOCATION(Constant.REGEX_CACHE_LOCATION, "<span id=\"ctl00_ContentBody_Location\">In "),
+    HINT(Constant.REGEX_CACHE_HINT, "<div id=\"div_hint\""),
+    PERSONAL_NOTE(Constant.REGEX_CACHE_PERSONAL_NOTE, "<span id=\"cache_note\""),
+    DESCRIPTION_SHORT(Constant.REGEX_CACHE_DESCRIPTION_SHORT, "<span id=\"ctl00_ContentBody_ShortDescription\">"),
+    DESCRIPTION(Constant.REGEX_CACHE_DESCRIPTION, "<span id=\"ctl00_ContentBody_LongDescription\">"),
+    DESCRIPTION_RELATED_PAGE(Constant.REGEX_CACHE_DESCRIPTION_RELATED_PAGE, "ctl00_ContentBody_uxCacheUrl"),
+    ALL_ATTRIBUTES(Constant.REGEX_CACHE_ALL_ATTRIBUTES, "<img src=\"/images/attributes"),
+    NO_ATTRIBUTES(Constant.REGEX_CACHE_NO_ATTRIBUTES, "No attributes available"),
+    FOUND(Constant.REGEX_CACHE_FOUND, "logtypes/48/"),
+    ON_WATCHLIST(Constant.REGEX_CACHE_ON_WATCHLIST, "watchlist.aspx"),
+    SPOILER_IMAGES(Constant.REGEX_CACHE_SPOILER_IMAGES, "<a href=\"http"),
+    INVENTORY(Constant.REGEX_CACHE_INVENTORY, "ctl00_ContentBody_uxTravelBugList_uxInventoryLabel\">"),
+    LOG_COUNTS(Constant.REGEX_CACHE_LOGCOUNTS, "<span id=\"ctl00_ContentBody_lblFindCounts\"><ul"),
+    WAYPOINTS(Constant.REGEX_CACHE_WAYPOINTS, "id=\"ctl00_ContentBody_Waypoints\""),
+    USER_TOKEN(Constant.REGEX_USER_TOKEN, "userToken");
+
+    companion object {
+        /** Automaton looking for anchors of all fields. Id of an anchor is the ordinal of its field. */
+        internal val AUTOMATON = AnchorAutomaton(values().map { it.anchor })
+    }
+}
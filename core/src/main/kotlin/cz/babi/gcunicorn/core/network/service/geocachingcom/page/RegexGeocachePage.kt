@@ -0,0 +1,36 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+/**
+ * Page searching every field by its regular expression over the whole page.
+ *
+ * It is the slowest way of extraction, because the page is scanned once per each field. It is kept as a fallback for [ScannedGeocachePage].
+ *
+ * @param pageBody Body of the page.
+ * @since 3.1.0
+ */
+class RegexGeocachePage(private val pageBody: String) : GeocachePage {
+
+    override fun find(field: PageField) = field.regex.find(pageBody)
+
+    override fun findAll(field: PageField) = field.regex.findAll(pageBody)
+
+    override fun containsMatchIn(field: PageField) = field.regex.containsMatchIn(pageBody)
+}
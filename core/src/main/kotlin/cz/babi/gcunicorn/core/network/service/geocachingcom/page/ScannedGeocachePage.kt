@@ -0,0 +1,87 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+/**
+ * Page scanned just once by [PageField.AUTOMATON].
+ *
+ * The scan records positions of all fields' anchors. A field is then matched only at positions of its anchor, so the
+ * result is the same as searching by the field's regular expression over the whole page but each regular expression
+ * touches just a few characters around its anchor.
+ *
+ * @param pageBody Body of the page.
+ * @since 3.1.0
+ */
+class ScannedGeocachePage(private val pageBody: String) : GeocachePage {
+
+    /** Positions of anchors. Indexed by field's ordinal. */
+    private val anchorPositions = Array(PageField.values().size) { AnchorPositions() }
+
+    init {
+        val automaton = PageField.AUTOMATON
+        var state = AnchorAutomaton.INITIAL_STATE
+
+        for(index in pageBody.indices) {
+            state = automaton.step(state, pageBody[index])
+            automaton.outputs(state).forEach { id ->
+                anchorPositions[id].add(index - automaton.length(id) + 1)
+            }
+        }
+    }
+
+    override fun find(field: PageField): MatchResult? {
+        val positions = anchorPositions[field.ordinal]
+        for(i in 0 until positions.size) {
+            field.regex.matchAt(pageBody, positions[i])?.let { return it }
+        }
+
+        return null
+    }
+
+    override fun findAll(field: PageField) = sequence {
+        val positions = anchorPositions[field.ordinal]
+        var nextIndex = 0
+        for(i in 0 until positions.size) {
+            val position = positions[i]
+            if(position < nextIndex) continue
+
+            field.regex.matchAt(pageBody, position)?.let {
+                yield(it)
+                nextIndex = if(it.range.isEmpty()) position + 1 else it.range.last + 1
+            }
+        }
+    }
+
+    /**
+     * Growable array of anchor positions.
+     */
+    private class AnchorPositions {
+        private var positions = IntArray(4)
+
+        var size = 0
+            private set
+
+        fun add(position: Int) {
+            if(size==positions.size) positions = positions.copyOf(size * 2)
+            positions[size++] = position
+        }
+
+        operator fun get(index: Int) = positions[index]
+    }
+}
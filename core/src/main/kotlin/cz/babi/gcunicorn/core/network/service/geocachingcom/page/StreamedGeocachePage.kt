@@ -0,0 +1,166 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+import java.io.Reader
+import java.util.regex.Matcher
+
+/**
+ * Page parsed directly from a character stream. The whole page is never held in memory.
+ *
+ * The stream is read in chunks and fed into [PageField.AUTOMATON]. Only the text following anchors of not yet resolved
+ * matches is retained, everything else is discarded as soon as it has been scanned. A match is resolved once more input
+ * can not change it, see [Matcher.hitEnd]. Resolved matches are detached from the stream, so their ranges are relative
+ * to the matched text and not to the page.
+ *
+ * A match which needs more input is not matched again with every chunk, a field spanning the whole page would be
+ * scanned quadratically otherwise. It is matched again once the text following its anchor doubles, so every character
+ * is scanned a constant number of times on average.
+ *
+ * The stream is read completely by the constructor, but it is not closed.
+ *
+ * @param reader Stream of the page.
+ * @param bufferSize Size of chunks read from given stream.
+ * @throws [java.io.IOException] If given stream can not be read.
+ * @since 3.1.0
+ */
+class StreamedGeocachePage(reader: Reader, bufferSize: Int = DEFAULT_BUFFER_SIZE) : GeocachePage {
+
+    /** Resolved matches. Indexed by field's ordinal. */
+    private val matches: Array<List<MatchResult>>
+
+    init {
+        val fields = PageField.values()
+        val candidates = Array(fields.size) { Candidates(fields[it]) }
+        val automaton = PageField.AUTOMATON
+        val longestAnchor = fields.maxOf { it.anchor.length }
+
+        val buffer = CharArray(bufferSize)
+        val window = StringBuilder()
+        var windowStart = 0
+        var state = AnchorAutomaton.INITIAL_STATE
+
+        while(true) {
+            val read = reader.read(buffer)
+            if(read==-1) break
+
+            val chunkStart = windowStart + window.length
+            for(i in 0 until read) {
+                state = automaton.step(state, buffer[i])
+                automaton.outputs(state).forEach { id ->
+                    candidates[id].add(chunkStart + i - automaton.length(id) + 1)
+                }
+            }
+            window.appendRange(buffer, 0, read)
+
+            var retainFrom = windowStart + window.length - longestAnchor + 1
+            candidates.forEach { candidate ->
+                candidate.resolve(window, windowStart, false)
+                if(candidate.isPending()) retainFrom = minOf(retainFrom, candidate.first())
+            }
+
+            // Drop scanned text nobody is interested in. Do it in larger blocks to avoid copying the window too often.
+            val discard = retainFrom - windowStart
+            if(discard >= bufferSize) {
+                window.delete(0, discard)
+                windowStart = retainFrom
+            }
+        }
+
+        candidates.forEach { it.resolve(window, windowStart, true) }
+        matches = Array(fields.size) { candidates[it].matches }
+    }
+
+    override fun find(field: PageField) = matches[field.ordinal].firstOrNull()
+
+    override fun findAll(field: PageField) = matches[field.ordinal].asSequence()
+
+    /**
+     * Positions where a field may match and matches resolved so far.
+     * @param field Field the candidates belong to.
+     */
+    private class Candidates(private val field: PageField) {
+        private val matcher: Matcher = field.regex.toPattern().matcher("")
+        private var positions = IntArray(4)
+        private var head = 0
+        private var tail = 0
+        private var nextIndex = 0
+        /** Page position the retained text has to reach before the first pending position is matched again. */
+        private var retryAt = 0
+
+        val matches = mutableListOf<MatchResult>()
+
+        fun add(position: Int) {
+            if(tail==positions.size) {
+                // Reuse space of resolved positions if there is any, grow otherwise.
+                val compacted = IntArray(if(head > 0) positions.size else positions.size * 2)
+                positions.copyInto(compacted, 0, head, tail)
+                positions = compacted
+                tail -= head
+                head = 0
+            }
+            positions[tail++] = position
+        }
+
+        fun isPending() = head < tail
+
+        fun first() = positions[head]
+
+        /**
+         * Tries to resolve pending positions in order.
+         * @param window Retained text.
+         * @param windowStart Position of the first retained character within the page.
+         * @param endOfInput True if there will be no more input.
+         */
+        fun resolve(window: StringBuilder, windowStart: Int, endOfInput: Boolean) {
+            val windowEnd = windowStart + window.length
+
+            while(isPending()) {
+                val position = first()
+                if(position < nextIndex) {
+                    head++
+                    continue
+                }
+
+                if(!endOfInput && windowEnd < retryAt) return
+
+                matcher.reset(window)
+                    .region(position - windowStart, window.length)
+                    .useTransparentBounds(true)
+                    .useAnchoringBounds(false)
+                val matched = matcher.lookingAt()
+
+                // The result may still change with more input.
+                if(!endOfInput && matcher.hitEnd()) {
+                    retryAt = windowEnd + (windowEnd - position)
+                    return
+                }
+
+                head++
+                retryAt = 0
+                if(matched) {
+                    val start = matcher.start()
+                    val end = matcher.end()
+                    field.regex.matchAt(window.substring(start, end), 0)?.let { matches.add(it) }
+                    nextIndex = windowStart + if(end==start) end + 1 else end
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.metrics
+
+import cz.babi.gcunicorn.core.metrics.Metrics
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test class for [Metrics].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestMetrics {
+
+    @Test
+    fun writePrometheus_recordedMetrics_samplesAreWrittenInTextFormat() {
+        val metrics = Metrics()
+        metrics.counter("requests_total", "Requests.", "field" to "na\"me").increment(3)
+        metrics.gauge("jobs", "Jobs.") { 2 }
+        metrics.stage(Metrics.Stage.LOGBOOK).record(TimeUnit.MILLISECONDS.toNanos(500))
+        metrics.stage(Metrics.Stage.LOGBOOK).record(TimeUnit.MILLISECONDS.toNanos(1500))
+
+        val output = StringBuilder().also { metrics.writePrometheus(it) }.toString()
+
+        Assertions.assertTrue(output.contains("# TYPE requests_total counter\nrequests_total{field=\"na\\\"me\"} 3\n"))
+        Assertions.assertTrue(output.contains("# TYPE jobs gauge\njobs 2\n"))
+        Assertions.assertTrue(output.contains("${Metrics.STAGE_SECONDS}_count{stage=\"logbook\"} 2\n"))
+        Assertions.assertTrue(output.contains("${Metrics.STAGE_SECONDS}_sum{stage=\"logbook\"} 2.0\n"))
+        Assertions.assertTrue(output.contains("${Metrics.STAGE_SECONDS}_max{stage=\"logbook\"} 1.5\n"))
+    }
+
+    @Test
+    fun counter_nameOfGauge_throwsException() {
+        val metrics = Metrics()
+        metrics.gauge("jobs", "Jobs.") { 2 }
+
+        Assertions.assertThrows(IllegalArgumentException::class.java) { metrics.counter("jobs", "Jobs.") }
+    }
+}
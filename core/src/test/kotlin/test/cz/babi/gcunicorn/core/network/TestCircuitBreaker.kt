@@ -0,0 +1,71 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network
+
+import cz.babi.gcunicorn.core.network.CircuitBreaker
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+/**
+ * Test class for [CircuitBreaker].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestCircuitBreaker {
+
+    @Test
+    fun acquire_tooManyFailures_requestsArePausedUntilTrialSucceeds() {
+        var now = 0L
+        val circuitBreaker = CircuitBreaker(failureThreshold = 2, openDuration = 1_000, maxWait = 0, clock = { now })
+
+        circuitBreaker.acquire()
+        circuitBreaker.onFailure()
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state)
+        circuitBreaker.onFailure()
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state)
+        Assertions.assertThrowsExactly(CircuitBreaker.OpenException::class.java) { circuitBreaker.acquire() }
+
+        now = 1_000
+        circuitBreaker.acquire()
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state)
+        // Only the trial request is let through.
+        Assertions.assertThrowsExactly(CircuitBreaker.OpenException::class.java) { circuitBreaker.acquire() }
+
+        circuitBreaker.onSuccess()
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state)
+        circuitBreaker.acquire()
+    }
+
+    @Test
+    fun onFailure_trialFailsWithRetryAfter_breakerIsOpenedForRequestedTime() {
+        var now = 0L
+        val circuitBreaker = CircuitBreaker(failureThreshold = 1, openDuration = 1_000, maxWait = 0, clock = { now })
+
+        circuitBreaker.onFailure()
+        now = 1_000
+        circuitBreaker.acquire()
+        circuitBreaker.onFailure(5_000)
+
+        now = 5_999
+        Assertions.assertThrowsExactly(CircuitBreaker.OpenException::class.java) { circuitBreaker.acquire() }
+        now = 6_000
+        circuitBreaker.acquire()
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network
+
+import cz.babi.gcunicorn.core.exception.network.HttpResponseException
+import cz.babi.gcunicorn.core.network.RequestThrottle
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Test class for [RequestThrottle].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestRequestThrottle {
+
+    @Test
+    fun execute_manyBlocks_maxParallelismIsNotExceeded() = runBlocking {
+        val throttle = RequestThrottle(3)
+        val running = AtomicInteger()
+        val maxRunning = AtomicInteger()
+
+        (1..20).map {
+            async {
+                throttle.execute {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), ::maxOf)
+                    delay(5)
+                    running.decrementAndGet()
+                }
+            }
+        }.awaitAll()
+
+        Assertions.assertEquals(3, maxRunning.get())
+    }
+
+    @Test
+    fun execute_throttledBlock_blockIsRetriedAndLimitIsLowered() = runBlocking {
+        val throttle = RequestThrottle(4, backOff = 1)
+        val attempts = AtomicInteger()
+
+        val result = throttle.execute {
+            if(attempts.incrementAndGet() < 3) throw HttpResponseException(HttpResponseException.CODE_TOO_MANY_REQUESTS, null, "Too many requests.")
+            "done"
+        }
+
+        Assertions.assertEquals("done", result)
+        Assertions.assertEquals(3, attempts.get())
+        // Halved twice and raised by one after the success.
+        Assertions.assertEquals(2, throttle.limit)
+    }
+
+    @Test
+    fun execute_throttledBlockWithoutRetries_queuedBlockRunsAfterPause() = runBlocking {
+        val throttle = RequestThrottle(1, maxRetries = 0)
+
+        val failed = async {
+            runCatching {
+                throttle.execute {
+                    delay(20)
+                    throw HttpResponseException(HttpResponseException.CODE_TOO_MANY_REQUESTS, 50L, "Too many requests.")
+                }
+            }
+        }
+        delay(5)
+        val queued = async { throttle.execute { "done" } }
+
+        Assertions.assertTrue(failed.await().exceptionOrNull() is HttpResponseException)
+        Assertions.assertEquals("done", withTimeout(5_000) { queued.await() })
+    }
+
+    @Test
+    fun execute_notThrottledFailure_exceptionIsThrown() {
+        val throttle = RequestThrottle(2, backOff = 1)
+        val attempts = AtomicInteger()
+
+        Assertions.assertThrowsExactly(HttpResponseException::class.java) {
+            runBlocking {
+                throttle.execute {
+                    attempts.incrementAndGet()
+                    throw HttpResponseException(404, null, "Not found.")
+                }
+            }
+        }
+        Assertions.assertEquals(1, attempts.get())
+        Assertions.assertEquals(2, throttle.limit)
+    }
+}
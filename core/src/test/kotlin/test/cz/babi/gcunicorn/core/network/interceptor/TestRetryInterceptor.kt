@@ -0,0 +1,137 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.interceptor
+
+import cz.babi.gcunicorn.core.network.CircuitBreaker
+import cz.babi.gcunicorn.core.network.Network
+import cz.babi.gcunicorn.core.network.interceptor.RetryInterceptor
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.Json
+import mockwebserver3.MockResponse
+import mockwebserver3.MockWebServer
+import okhttp3.OkHttpClient
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.TimeUnit
+
+/**
+ * Test class for [RetryInterceptor].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestRetryInterceptor {
+
+    private lateinit var server: MockWebServer
+
+    @BeforeEach
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        server.close()
+    }
+
+    @Test
+    fun getRequest_serverFailsTemporarily_requestIsRetried() = runBlocking {
+        server.enqueue(MockResponse.Builder().code(503).build())
+        server.enqueue(MockResponse.Builder().code(429).addHeader("Retry-After", "0").build())
+        server.enqueue(MockResponse.Builder().code(200).body("OK").build())
+
+        val response = createNetwork(RetryInterceptor(maxRetries = 2, backOff = 1)).getRequest(server.url("/").toString())
+
+        Assertions.assertEquals(200, response.code)
+        Assertions.assertEquals(3, server.requestCount)
+        response.close()
+    }
+
+    @Test
+    fun getRequest_retriesExhausted_lastResponseIsReturned() = runBlocking {
+        repeat(3) { server.enqueue(MockResponse.Builder().code(500).build()) }
+
+        val response = createNetwork(RetryInterceptor(maxRetries = 2, backOff = 1)).getRequest(server.url("/").toString())
+
+        Assertions.assertEquals(500, response.code)
+        Assertions.assertEquals(3, server.requestCount)
+        response.close()
+    }
+
+    @Test
+    fun getRequest_retryAfterExceedsMaxBackOff_responseIsReturnedWithoutRetry() = runBlocking {
+        server.enqueue(MockResponse.Builder().code(429).addHeader("Retry-After", "60").build())
+
+        val response = createNetwork(RetryInterceptor(maxBackOff = 1_000)).getRequest(server.url("/").toString())
+
+        Assertions.assertEquals(429, response.code)
+        Assertions.assertEquals(1, server.requestCount)
+        response.close()
+    }
+
+    @Test
+    fun postRequest_serverFailsTemporarily_requestIsNotRetried() = runBlocking {
+        server.enqueue(MockResponse.Builder().code(503).build())
+
+        val response = createNetwork(RetryInterceptor(backOff = 1)).postRequest(server.url("/").toString())
+
+        Assertions.assertEquals(503, response.code)
+        Assertions.assertEquals(1, server.requestCount)
+        response.close()
+    }
+
+    @Test
+    fun getRequest_breakerIsOpen_requestWaitsForTrial() = runBlocking {
+        server.enqueue(MockResponse.Builder().code(503).build())
+        server.enqueue(MockResponse.Builder().code(200).build())
+        val circuitBreaker = CircuitBreaker(failureThreshold = 1, openDuration = 100)
+
+        val response = createNetwork(RetryInterceptor(maxRetries = 1, backOff = 1, circuitBreaker = circuitBreaker)).getRequest(server.url("/").toString())
+
+        Assertions.assertEquals(200, response.code)
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state)
+        response.close()
+    }
+
+    @Test
+    fun getRequest_callIsCancelled_failureIsNotCounted() = runBlocking {
+        server.enqueue(MockResponse.Builder().code(200).headersDelay(10, TimeUnit.SECONDS).build())
+        val circuitBreaker = CircuitBreaker(failureThreshold = 1)
+        val okHttpClient = OkHttpClient.Builder().addInterceptor(RetryInterceptor(circuitBreaker = circuitBreaker)).build()
+        val network = Network(okHttpClient, Json)
+
+        val job = launch(Dispatchers.IO) { network.getRequest(server.url("/").toString()) }
+        server.takeRequest()
+        job.cancelAndJoin()
+        // The interceptor finishes on a thread of the client.
+        while(okHttpClient.dispatcher.runningCallsCount() > 0) delay(10)
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state)
+        Assertions.assertEquals(1, server.requestCount)
+    }
+
+    private fun createNetwork(retryInterceptor: RetryInterceptor) = Network(OkHttpClient.Builder().addInterceptor(retryInterceptor).build(), Json)
+}
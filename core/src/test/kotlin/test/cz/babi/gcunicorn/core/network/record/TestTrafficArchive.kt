@@ -0,0 +1,81 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.record
+
+import cz.babi.gcunicorn.core.network.record.TrafficArchive
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.file.Files
+
+/**
+ * Test class for [TrafficArchive].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestTrafficArchive {
+
+    private lateinit var directory: File
+
+    @BeforeEach
+    fun setUp() {
+        directory = Files.createTempDirectory("gcunicorn").toFile()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        directory.deleteRecursively()
+    }
+
+    @Test
+    fun read_appendedExchanges_exchangesAreReadInOrder() {
+        val file = File(directory, "traffic.gz")
+        TrafficArchive(file).apply {
+            append(createExchange("https://www.geocaching.com/geocache/GC1", "Password=***"))
+            append(createExchange("https://www.geocaching.com/geocache/GC2", null))
+        }
+
+        val exchanges = TrafficArchive(file).read()
+
+        Assertions.assertEquals(listOf("https://www.geocaching.com/geocache/GC1", "https://www.geocaching.com/geocache/GC2"), exchanges.map { it.url })
+        Assertions.assertEquals("Password=***", exchanges[0].requestBody)
+        Assertions.assertNull(exchanges[1].requestBody)
+        Assertions.assertEquals(listOf("Content-Type" to "text/html"), exchanges[1].headers)
+        Assertions.assertEquals("<html></html>", String(exchanges[1].body))
+    }
+
+    @Test
+    fun read_damagedLastExchange_exchangeIsDropped() {
+        val file = File(directory, "traffic.gz")
+        val archive = TrafficArchive(file)
+        archive.append(createExchange("https://www.geocaching.com/geocache/GC1", null))
+        val length = file.length()
+        archive.append(createExchange("https://www.geocaching.com/geocache/GC2", null))
+        RandomAccessFile(file, "rw").use { it.setLength(length + (file.length() - length) / 2) }
+
+        Assertions.assertEquals(listOf("https://www.geocaching.com/geocache/GC1"), archive.read().map { it.url })
+    }
+
+    private fun createExchange(url: String, requestBody: String?) =
+            TrafficArchive.Exchange("GET", url, requestBody, 200, "OK", listOf("Content-Type" to "text/html"), "<html></html>".toByteArray(), 42L)
+}
@@ -0,0 +1,118 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.service.geocachingcom
+
+import cz.babi.gcunicorn.core.location.Coordinates
+import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesParser
+import cz.babi.gcunicorn.core.network.Network
+import cz.babi.gcunicorn.core.network.service.GeocacheLoadedListener
+import cz.babi.gcunicorn.core.network.service.ServiceConfiguration
+import cz.babi.gcunicorn.core.network.service.geocachingcom.GCWebApi
+import cz.babi.gcunicorn.core.network.service.geocachingcom.GeoCachingCom
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheFilter
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.Json
+import okhttp3.Interceptor
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Response
+import okhttp3.ResponseBody.Companion.toResponseBody
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+/**
+ * Test class for [GeoCachingCom].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestGeoCachingCom {
+
+    @Test
+    fun lookForCaches_detailsCanNotBeLoaded_listenerIsNotifiedAboutSkippedCache() = runBlocking {
+        val okHttpClient = OkHttpClient.Builder().addInterceptor { chain ->
+            val url = chain.request().url.toString()
+            when {
+                url.contains("/oauth/token") -> respond(chain, 200, """{"access_token":"token","token_type":"Bearer","expires_in":3600}""")
+                url.contains("/web/search/") -> respond(chain, 200, """{"results":[{"id":1,"name":"Broken","code":"GC1","premiumOnly":false,"geocacheType":2,"distance":"100ft"}]}""")
+                else -> respond(chain, 500, "")
+            }
+        }.build()
+        val json = Json { ignoreUnknownKeys = true }
+        val network = Network(okHttpClient, json)
+        val service = GeoCachingCom(network, DecimalDegreesParser(), json, GCWebApi(network), ServiceConfiguration(detailRetries = 0))
+
+        val loaded = mutableListOf<Geocache>()
+        val skipped = mutableListOf<String?>()
+        val geocaches = service.lookForCaches(Coordinates(50.0, 14.0), CacheFilter(maxDistance = 10.0), 1, object : GeocacheLoadedListener {
+            override fun geocacheLoaded(geocache: Geocache) {
+                loaded.add(geocache)
+            }
+
+            override fun geocacheSkipped(code: String?, reason: Throwable) {
+                skipped.add(code)
+            }
+        })
+
+        Assertions.assertEquals(listOf("GC1"), skipped)
+        Assertions.assertTrue(loaded.isEmpty())
+        Assertions.assertTrue(geocaches.isEmpty())
+    }
+
+    @Test
+    fun lookForCaches_disabledCachesAreReplaced_listenerGetsReturnedCachesOnly() = runBlocking {
+        val page = javaClass.getResource("/geocachingcom/geocache-page.html")!!.readText()
+        val disabledPage = page.replace("<span id=\"ctl00_ContentBody_CacheName\"", "<div id=\"ctl00_ContentBody_uxDisabledMessageBody\"></div><span id=\"ctl00_ContentBody_CacheName\"")
+        val okHttpClient = OkHttpClient.Builder().addInterceptor { chain ->
+            val url = chain.request().url.toString()
+            when {
+                url.contains("/oauth/token") -> respond(chain, 200, """{"access_token":"token","token_type":"Bearer","expires_in":3600}""")
+                url.contains("/web/search/") && url.contains("skip=0") -> respond(chain, 200, """{"results":[{"id":1,"name":"Disabled","code":"GC1","premiumOnly":false,"geocacheType":2,"distance":"100ft"},{"id":2,"name":"Enabled","code":"GC2","premiumOnly":false,"geocacheType":2,"distance":"200ft"}]}""")
+                url.contains("/web/search/") -> respond(chain, 200, """{"results":[{"id":3,"name":"Refill","code":"GC3","premiumOnly":false,"geocacheType":2,"distance":"300ft"}]}""")
+                url.endsWith("/geocache/GC1") -> respond(chain, 200, disabledPage)
+                url.contains("/geocache/") -> respond(chain, 200, page)
+                else -> respond(chain, 500, "")
+            }
+        }.build()
+        val json = Json { ignoreUnknownKeys = true }
+        val network = Network(okHttpClient, json)
+        val service = GeoCachingCom(network, DecimalDegreesParser(), json, GCWebApi(network), ServiceConfiguration(detailRetries = 0))
+
+        val loaded = mutableListOf<Geocache>()
+        val geocaches = service.lookForCaches(Coordinates(50.0, 14.0), CacheFilter(maxDistance = 10.0, sections = emptySet()), 2, object : GeocacheLoadedListener {
+            override fun geocacheLoaded(geocache: Geocache) {
+                loaded.add(geocache)
+            }
+        })
+
+        Assertions.assertEquals(2, geocaches.size)
+        Assertions.assertTrue(geocaches.none { true == it.isDisabled })
+        Assertions.assertEquals(geocaches, loaded)
+    }
+
+    private fun respond(chain: Interceptor.Chain, code: Int, body: String) = Response.Builder()
+            .request(chain.request())
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message(if(code==200) "OK" else "Error")
+            .body(body.toResponseBody("application/json".toMediaType()))
+            .build()
+}
@@ -0,0 +1,103 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.service.geocachingcom.cache
+
+import cz.babi.gcunicorn.core.location.Coordinates
+import cz.babi.gcunicorn.core.network.model.CacheValidators
+import cz.babi.gcunicorn.core.network.model.Image
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.DiskGeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.GeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Attribute
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.AttributeType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheSection
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogEntry
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Waypoint
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.WaypointType
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.File
+import java.nio.file.Files
+
+/**
+ * Test class for [DiskGeocacheCache].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestDiskGeocacheCache {
+
+    private lateinit var directory: File
+
+    @BeforeEach
+    fun setUp() {
+        directory = Files.createTempDirectory("gcunicorn").toFile()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        directory.deleteRecursively()
+    }
+
+    @Test
+    fun get_storedEntry_entryIsRestoredByNewInstance() {
+        val geocache = Geocache(
+                type = CacheType.TRADITIONAL,
+                coordinates = Coordinates(50.5, 14.25),
+                longDescription = "x".repeat(100_000),
+                attributes = listOf(Attribute(AttributeType.values()[0], true)),
+                logCounts = mapOf(LogType.values()[0] to 42),
+                waypoints = listOf(Waypoint("Parking", WaypointType.PARKING, "PK", null, null, null)),
+                logEntries = listOf(LogEntry(1L, LogType.values()[0], "TFTC", 1000L, "unicorn", 2L, listOf(Image("https://img"))))
+        ).apply {
+            code = "GC12345"
+            url = "https://www.geocaching.com/geocache/GC12345"
+        }
+        val entry = GeocacheCache.Entry(geocache, 1000L, CacheValidators("\"abc\"", null), setOf(GeocacheSection.WAYPOINTS, GeocacheSection.LOGBOOK))
+
+        DiskGeocacheCache(directory).put("user/GC12345", entry)
+
+        Assertions.assertEquals(entry, DiskGeocacheCache(directory).get("user/GC12345"))
+        Assertions.assertNull(DiskGeocacheCache(directory).get("user/GC54321"))
+    }
+
+    @Test
+    fun put_maxSizeExceeded_leastRecentlyUsedEntryIsEvicted() {
+        val entrySize = DiskGeocacheCache(directory).run {
+            put("GC0", createEntry("GC0"))
+            directory.listFiles()!!.single().length().also { clear() }
+        }
+        val cache = DiskGeocacheCache(directory, entrySize * 2)
+
+        cache.put("GC1", createEntry("GC1"))
+        cache.put("GC2", createEntry("GC2"))
+        cache.get("GC1")
+        cache.put("GC3", createEntry("GC3"))
+
+        Assertions.assertNotNull(cache.get("GC1"))
+        Assertions.assertNull(cache.get("GC2"))
+        Assertions.assertNotNull(cache.get("GC3"))
+    }
+
+    private fun createEntry(code: String) = GeocacheCache.Entry(Geocache().apply { this.code = code }, 0L, null)
+}
@@ -0,0 +1,103 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.service.geocachingcom.cache
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.TrackableCache
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.awaitCancellation
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.yield
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+import java.nio.file.Files
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Test class for [TrackableCache].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestTrackableCache {
+
+    @Test
+    fun get_concurrentLookupsOfSameTrackable_trackableIsLoadedOnce() = runBlocking {
+        val cache = TrackableCache()
+        val loads = AtomicInteger()
+        val release = CompletableDeferred<Unit>()
+
+        val lookups = List(5) {
+            async {
+                cache.get("guid") {
+                    loads.incrementAndGet()
+                    release.await()
+                    TrackableCache.Details("TB123", 123L)
+                }
+            }
+        }
+        release.complete(Unit)
+
+        lookups.awaitAll().forEach { Assertions.assertEquals(TrackableCache.Details("TB123", 123L), it) }
+        Assertions.assertEquals(1, loads.get())
+        Assertions.assertEquals(TrackableCache.Details("TB123", 123L), cache.get("guid") { throw IllegalStateException() })
+    }
+
+    @Test
+    fun get_downloadingLookupIsCancelled_waitingLookupLoadsTrackable() = runBlocking {
+        val cache = TrackableCache()
+        val started = CompletableDeferred<Unit>()
+
+        val owner = async {
+            cache.get("guid") {
+                started.complete(Unit)
+                awaitCancellation()
+            }
+        }
+        started.await()
+        val waiter = async { cache.get("guid") { TrackableCache.Details("TB123", 123L) } }
+        // Lets the second lookup wait for the running download.
+        yield()
+        owner.cancel()
+
+        Assertions.assertEquals(TrackableCache.Details("TB123", 123L), waiter.await())
+        Assertions.assertTrue(owner.isCancelled)
+    }
+
+    @Test
+    fun save_cachedTrackables_trackablesAreRestoredByNewInstance() = runBlocking {
+        val directory = Files.createTempDirectory("gcunicorn").toFile()
+        try {
+            val file = directory.resolve("trackables")
+            TrackableCache(file).apply {
+                get("guid1") { TrackableCache.Details("TB1", 1L) }
+                get("guid2") { TrackableCache.Details(null, 2L) }
+                save()
+            }
+
+            val cache = TrackableCache(file)
+
+            Assertions.assertEquals(2, cache.size())
+            Assertions.assertEquals(TrackableCache.Details(null, 2L), cache.get("guid2") { null })
+        } finally {
+            directory.deleteRecursively()
+        }
+    }
+}
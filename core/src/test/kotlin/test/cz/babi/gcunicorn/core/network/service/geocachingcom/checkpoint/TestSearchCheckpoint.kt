@@ -0,0 +1,115 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint.SearchCheckpoint
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheLite
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.nio.file.Files
+
+/**
+ * Test class for [SearchCheckpoint].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestSearchCheckpoint {
+
+    private lateinit var file: File
+
+    @BeforeEach
+    fun setUp() {
+        file = Files.createTempFile("gcunicorn", ".checkpoint").toFile()
+    }
+
+    @AfterEach
+    fun tearDown() {
+        file.delete()
+    }
+
+    @Test
+    fun constructor_storedProgress_progressIsRestored() {
+        val gc1 = GeocacheLite(1L, "First", "GC1", "https://www.geocaching.com/geocache/GC1", false)
+        val gc2 = GeocacheLite(2L, "Second", "GC2", "https://www.geocaching.com/geocache/GC2", null)
+
+        SearchCheckpoint(file).apply {
+            pageLoaded(0, 10, 10, 10, false, listOf(gc1))
+            pageLoaded(0, 9, 20, 30, true, listOf(gc2))
+            geocacheLoaded(Geocache(hint = "Under the stone.").apply { code = "GC1" })
+            close()
+        }
+
+        val checkpoint = SearchCheckpoint(file)
+
+        Assertions.assertEquals(SearchCheckpoint.PagingState(9, 20, 30, true, listOf(gc1, gc2)), checkpoint.getPagingState(0))
+        Assertions.assertNull(checkpoint.getPagingState(30))
+        Assertions.assertEquals("Under the stone.", checkpoint.getGeocache("GC1")?.hint)
+        Assertions.assertNull(checkpoint.getGeocache("GC2"))
+    }
+
+    @Test
+    fun constructor_damagedLastRecord_validRecordsAreKept() {
+        SearchCheckpoint(file).apply {
+            geocacheLoaded(Geocache().apply { code = "GC1" })
+            geocacheLoaded(Geocache().apply { code = "GC2" })
+            close()
+        }
+        // Simulates the process killed while writing the last record.
+        file.writeBytes(file.readBytes().copyOf(file.length().toInt() - 3))
+
+        SearchCheckpoint(file).apply {
+            Assertions.assertEquals(1, geocacheCount)
+            geocacheLoaded(Geocache().apply { code = "GC3" })
+            close()
+        }
+
+        val checkpoint = SearchCheckpoint(file)
+        Assertions.assertNotNull(checkpoint.getGeocache("GC1"))
+        Assertions.assertNull(checkpoint.getGeocache("GC2"))
+        Assertions.assertNotNull(checkpoint.getGeocache("GC3"))
+    }
+
+    @Test
+    fun constructor_previousFormatVersion_checkpointIsStartedOver() {
+        // Version 1 stored geocaches without loaded sections.
+        DataOutputStream(FileOutputStream(file)).use {
+            it.writeInt(1)
+            it.writeInt(2)
+            it.writeUTF("GC1")
+        }
+
+        SearchCheckpoint(file).apply {
+            Assertions.assertEquals(0, geocacheCount)
+            Assertions.assertFalse(file.exists())
+            geocacheLoaded(Geocache().apply { code = "GC2" })
+            close()
+        }
+
+        val checkpoint = SearchCheckpoint(file)
+        Assertions.assertNull(checkpoint.getGeocache("GC1"))
+        Assertions.assertNotNull(checkpoint.getGeocache("GC2"))
+    }
+}
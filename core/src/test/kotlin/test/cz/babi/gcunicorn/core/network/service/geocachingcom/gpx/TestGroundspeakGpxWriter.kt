@@ -0,0 +1,86 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.service.geocachingcom.gpx
+
+import cz.babi.gcunicorn.core.location.Coordinates
+import cz.babi.gcunicorn.core.network.service.geocachingcom.gpx.GroundspeakGpxWriter
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Waypoint
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.WaypointType
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.Test
+
+/**
+ * Test class for [GroundspeakGpxWriter].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestGroundspeakGpxWriter {
+
+    @Test
+    fun write_geocacheWithSpecialCharacters_textIsEscapedAndInvalidCharactersAreDropped() {
+        val output = StringBuilder()
+        val geocache = Geocache(coordinates = Coordinates(50.5, 14.25), hint = "Pod\b kamenem").apply {
+            code = "GC12345"
+            name = "Fish & \"Chips\" <3\u0000\uD800"
+        }
+
+        GroundspeakGpxWriter(output, false).apply {
+            write(geocache)
+            finish()
+        }
+
+        val gpx = output.toString()
+        Assertions.assertTrue(gpx.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?><gpx version=\"1.1\" creator=\"gcUnicorn\""))
+        Assertions.assertTrue(gpx.endsWith("</gpx>"))
+        Assertions.assertTrue(gpx.contains("<wpt lat=\"50.5\" lon=\"14.25\"><name>GC12345</name><desc>Fish &amp; \"Chips\" &lt;3</desc>"))
+        Assertions.assertTrue(gpx.contains("<link><href>https://coord.info/GC12345</href><text>Fish &amp; \"Chips\" &lt;3</text></link>"))
+        Assertions.assertTrue(gpx.contains("<groundspeak:encoded_hints>Cbq xnzrarz</groundspeak:encoded_hints>"))
+    }
+
+    @Test
+    fun write_geocacheWithoutCoordinates_geocacheIsSkipped() {
+        val output = StringBuilder()
+
+        GroundspeakGpxWriter(output, false).apply {
+            write(Geocache().apply { code = "GC12345" })
+            finish()
+        }
+
+        Assertions.assertFalse(output.contains("<wpt"))
+    }
+
+    @Test
+    fun write_formattedOutput_waypointIsIndented() {
+        val output = StringBuilder()
+        val geocache = Geocache(
+                coordinates = Coordinates(50.5, 14.25),
+                waypoints = listOf(Waypoint("Parking", WaypointType.PARKING, "PK", null, null, null))
+        ).apply { code = "GC12345" }
+
+        GroundspeakGpxWriter(output, true).apply {
+            write(geocache)
+            finish()
+        }
+
+        Assertions.assertTrue(output.contains("\n\t<wpt>\n\t\t<name>PK12345</name>\n\t\t<desc>Parking</desc>\n\t\t<sym>Parking Area</sym>"))
+        Assertions.assertTrue(output.endsWith("\n\t\t<gsak:wptExtension>\n\t\t\t<gsak:Parent>GC12345</gsak:Parent>\n\t\t</gsak:wptExtension>\n\t</wpt>\n</gpx>"))
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.PageField
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.RegexGeocachePage
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.ScannedGeocachePage
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ * Test class for [ScannedGeocachePage].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestScannedGeocachePage {
+
+    lateinit var pages: List<String>
+
+    @BeforeEach
+    fun init() {
+        val page = javaClass.getResource("/geocachingcom/geocache-page.html")!!.readText()
+
+        pages = listOf(
+                page,
+                page.replace("<section class=\"premium-upgrade-widget\">", "")
+                    .replace("</body>", "<div id=\"ctl00_ContentBody_uxDisabledMessageBody\"></div><div id=\"ctl00_ContentBody_archivedMessage\"></div></body>"),
+                "<section class=\"premium-upgrade-widget\"><p>No attributes available</p></section>",
+                ""
+        )
+    }
+
+    @Test
+    fun find_anyField_returnsSameMatchAsRegex() {
+        for(page in pages) {
+            val scannedPage = ScannedGeocachePage(page)
+            val regexPage = RegexGeocachePage(page)
+
+            for(field in PageField.values()) {
+                Assertions.assertEquals(regexPage.find(field)?.groupValues, scannedPage.find(field)?.groupValues, field.name)
+                Assertions.assertEquals(regexPage.containsMatchIn(field), scannedPage.containsMatchIn(field), field.name)
+            }
+        }
+    }
+
+    @Test
+    fun findAll_anyField_returnsSameMatchesAsRegex() {
+        for(page in pages) {
+            val scannedPage = ScannedGeocachePage(page)
+            val regexPage = RegexGeocachePage(page)
+
+            for(field in PageField.values()) {
+                Assertions.assertEquals(regexPage.findAll(field).map { it.range to it.groupValues }.toList(), scannedPage.findAll(field).map { it.range to it.groupValues }.toList(), field.name)
+            }
+        }
+    }
+
+    @Test
+    fun find_fieldsOfValidPage_returnsValues() {
+        val scannedPage = ScannedGeocachePage(pages[0])
+
+        Assertions.assertEquals("Unicorn's Hideout", scannedPage.find(PageField.NAME)?.groupValues?.get(1))
+        Assertions.assertEquals("GC12345", scannedPage.find(PageField.CODE)?.groupValues?.get(1))
+        Assertions.assertEquals("ABCDEF123", scannedPage.find(PageField.USER_TOKEN)?.groupValues?.get(1))
+        Assertions.assertEquals(2, scannedPage.findAll(PageField.SPOILER_IMAGES).count())
+        Assertions.assertTrue(scannedPage.containsMatchIn(PageField.ON_WATCHLIST))
+        Assertions.assertTrue(scannedPage.containsMatchIn(PageField.FOUND))
+        Assertions.assertFalse(scannedPage.containsMatchIn(PageField.PREMIUM_ONLY))
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package test.cz.babi.gcunicorn.core.network.service.geocachingcom.page
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.PageField
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.RegexGeocachePage
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.StreamedGeocachePage
+import org.junit.jupiter.api.Assertions
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.StringReader
+
+/**
+ * Test class for [StreamedGeocachePage].
+ *
+ * @author Martin Misiarz
+ * @author dev.misiarz@gmail.com
+ */
+class TestStreamedGeocachePage {
+
+    lateinit var pages: List<String>
+    lateinit var bufferSizes: List<Int>
+
+    @BeforeEach
+    fun init() {
+        val page = javaClass.getResource("/geocachingcom/geocache-page.html")!!.readText()
+
+        pages = listOf(
+                page,
+                page.replace("\n", ""),
+                "<section class=\"premium-upgrade-widget\"><p>No attributes available</p></section>",
+                ""
+        )
+        bufferSizes = listOf(1, 7, 64, DEFAULT_BUFFER_SIZE)
+    }
+
+    @Test
+    fun find_anyFieldAnyBufferSize_returnsSameMatchAsRegex() {
+        for(page in pages) {
+            val regexPage = RegexGeocachePage(page)
+
+            for(bufferSize in bufferSizes) {
+                val streamedPage = StreamedGeocachePage(StringReader(page), bufferSize)
+
+                for(field in PageField.values()) {
+                    Assertions.assertEquals(regexPage.find(field)?.groupValues, streamedPage.find(field)?.groupValues, "${field.name} ($bufferSize)")
+                    Assertions.assertEquals(regexPage.containsMatchIn(field), streamedPage.containsMatchIn(field), "${field.name} ($bufferSize)")
+                }
+            }
+        }
+    }
+
+    @Test
+    fun findAll_anyFieldAnyBufferSize_returnsSameMatchesAsRegex() {
+        for(page in pages) {
+            val regexPage = RegexGeocachePage(page)
+
+            for(bufferSize in bufferSizes) {
+                val streamedPage = StreamedGeocachePage(StringReader(page), bufferSize)
+
+                for(field in PageField.values()) {
+                    Assertions.assertEquals(regexPage.findAll(field).map { it.groupValues }.toList(), streamedPage.findAll(field).map { it.groupValues }.toList(), "${field.name} ($bufferSize)")
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.jmh
+
+import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreeEmptySidesParser
+import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesParser
+import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesRightSideParser
+import cz.babi.gcunicorn.core.location.parser.impl.DegreesDecimalMinuteParser
+import cz.babi.gcunicorn.core.location.parser.impl.ParserWrapper
+import cz.babi.gcunicorn.core.network.service.geocachingcom.toKm
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks parsing of coordinates and conversion of distances of search results.
+ *
+ * @since 3.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class CoordinatesBenchmark {
+
+    /** Parsers in the same order as the applications use them. */
+    private val parser = ParserWrapper(DecimalDegreesParser(), DegreesDecimalMinuteParser(), DecimalDegreeEmptySidesParser(), DecimalDegreesRightSideParser())
+
+    @Param("N 50° 05.123 E 014° 25.456", "50.08538, 14.42427", "N 18° 55', E 45° 55'")
+    var coordinates = ""
+
+    /** Distances as they are sent within search results. */
+    private val distances = arrayOf("350ft", "0.3mi", "1.2mi", "12.5mi")
+
+    @Benchmark
+    fun parse() = parser.parse(coordinates)
+
+    @Benchmark
+    fun toKm(blackhole: Blackhole) {
+        distances.forEach { blackhole.consume(it.toKm()) }
+    }
+}
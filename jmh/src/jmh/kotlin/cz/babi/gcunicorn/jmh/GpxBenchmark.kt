@@ -0,0 +1,112 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.jmh
+
+import cz.babi.gcunicorn.core.location.Coordinates
+import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesParser
+import cz.babi.gcunicorn.core.network.Network
+import cz.babi.gcunicorn.core.network.model.Image
+import cz.babi.gcunicorn.core.network.service.geocachingcom.GCWebApi
+import cz.babi.gcunicorn.core.network.service.geocachingcom.GeoCachingCom
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Attribute
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.AttributeType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheSizeType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogEntry
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.LogType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Waypoint
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.WaypointType
+import kotlinx.serialization.json.Json
+import okhttp3.OkHttpClient
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks generation of GPX file of fully loaded geocaches by geocaching.com service. The service makes no request
+ * while it is writing GPX file.
+ *
+ * @since 3.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class GpxBenchmark {
+
+    @Param("10", "100", "200")
+    var count = 0
+
+    @Param("false", "true")
+    var formatOutput = false
+
+    private lateinit var service: GeoCachingCom
+    private lateinit var geocaches: List<Geocache>
+
+    @Setup
+    fun setUp() {
+        val network = Network(OkHttpClient(), Json)
+        service = GeoCachingCom(network, DecimalDegreesParser(), Json, GCWebApi(network))
+        geocaches = List(count) { createGeocache(it) }
+    }
+
+    @Benchmark
+    fun createGpx() = StringBuilder().also { output ->
+        service.createGpxWriter(output, formatOutput).apply {
+            geocaches.forEach { write(it) }
+            finish()
+        }
+    }
+
+    /**
+     * Creates geocache with all fields filled, so every part of GPX file is written.
+     */
+    private fun createGeocache(index: Int) = Geocache(
+            guid = "0f1e2d3c-4b5a-6978-8796-%012d".format(index),
+            type = CacheType.values()[index % CacheType.values().size],
+            isDisabled = false,
+            ownerName = "Unicorn & Co.",
+            ownerId = "PR1234",
+            isArchived = false,
+            terrain = 2.5,
+            difficulty = 1.5,
+            sizeType = CacheSizeType.values()[index % CacheSizeType.values().size],
+            hiddenDate = 1_400_000_000_000L,
+            coordinates = Coordinates(50.08 + index * 0.001, 14.42 + index * 0.001),
+            location = "Hlavni mesto Praha, Czechia",
+            hint = "Pod kamenem u stromu",
+            longDescription = "<p>The cache is hidden near <b>the old oak</b>. Please, be careful &amp; discreet.</p>\n".repeat(40),
+            shortDescription = "Short walk in the park.",
+            attributes = listOf(Attribute(AttributeType.values()[0], true), Attribute(AttributeType.values()[1], false)),
+            waypoints = listOf(Waypoint("Parking", WaypointType.PARKING, "PK", "PK", "Park here.", Coordinates(50.081, 14.421))),
+            logEntries = List(20) {
+                LogEntry(1_200_000_000L + it, LogType.values()[it % LogType.values().size], "Thanks for the cache, nice place! TFTC", 1_700_000_000_000L, "cacher$it", 100_000L + it, listOf(Image("https://img.geocaching.com/cache/log/$it.jpg")))
+            }
+    ).apply {
+        code = "GC%X".format(0xA0000 + index)
+        name = "Unicorn's Hideout #$index"
+        url = "https://www.geocaching.com/geocache/$code"
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.jmh
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.GCWebApi
+import cz.babi.gcunicorn.core.network.service.geocachingcom.Logbook
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.decodeFromStream
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.io.ByteArrayInputStream
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks parsing of recorded JSON responses: a page of logbook and a page of Web Api search results. They are
+ * decoded from streams the same way [cz.babi.gcunicorn.core.network.Network.requestFor] does it.
+ *
+ * @since 3.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class JsonBenchmark {
+
+    /** Configured the same way as the one of the applications. */
+    @OptIn(ExperimentalSerializationApi::class)
+    private val json = Json {
+        explicitNulls = false
+        ignoreUnknownKeys = true
+    }
+
+    private lateinit var logbook: ByteArray
+    private lateinit var search: ByteArray
+
+    @Setup
+    fun setUp() {
+        logbook = loadResource("geocachingcom/logbook.json").toByteArray(Charsets.UTF_8)
+        search = loadResource("geocachingcom/search.json").toByteArray(Charsets.UTF_8)
+    }
+
+    /** Baseline of decoding of the logbook into a tree of elements. */
+    @Benchmark
+    fun parseLogbookTree() = json.parseToJsonElement(String(logbook, Charsets.UTF_8))
+
+    @OptIn(ExperimentalSerializationApi::class)
+    @Benchmark
+    fun decodeLogbook() = json.decodeFromStream<Logbook>(ByteArrayInputStream(logbook))
+
+    @OptIn(ExperimentalSerializationApi::class)
+    @Benchmark
+    fun decodeSearchResult() = json.decodeFromStream<GCWebApi.SearchResultLite>(ByteArrayInputStream(search))
+}
@@ -0,0 +1,75 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.jmh
+
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.PageExtractor
+import cz.babi.gcunicorn.core.network.service.geocachingcom.page.PageField
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.io.StringReader
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks extraction of all fields from geocache's detail page, the same way geocaching.com service does it.
+ *
+ * Real pages are mostly made of scripts and markup surrounding the fields, so the recorded page can be padded with
+ * such markup to get closer to their size.
+ *
+ * @since 3.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+open class PageExtractionBenchmark {
+
+    @Param("STREAM", "SCANNER", "REGEX")
+    var extractor = PageExtractor.STREAM
+
+    /** Size of markup added around the fields in kilobytes. */
+    @Param("0", "200")
+    var paddingKb = 0
+
+    private lateinit var page: String
+
+    @Setup
+    fun setUp() {
+        val recordedPage = loadResource("geocachingcom/geocache-page.html")
+        val filler = "<div class=\"filler\"><script>window.dataLayer.push({ event: 'unicorn' });</script></div>\n"
+        val padding = filler.repeat(paddingKb * 1024 / filler.length)
+
+        page = recordedPage.replaceFirst("<body>", "<body>\n$padding").replaceFirst("</body>", "$padding</body>")
+    }
+
+    @Benchmark
+    fun extractAllFields(blackhole: Blackhole) {
+        val geocachePage = extractor.open(StringReader(page))
+
+        PageField.values().forEach { field ->
+            blackhole.consume(geocachePage.find(field))
+        }
+        geocachePage.findAll(PageField.SPOILER_IMAGES).forEach { blackhole.consume(it) }
+    }
+}
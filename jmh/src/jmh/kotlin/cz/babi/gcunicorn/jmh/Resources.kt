@@ -0,0 +1,30 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.jmh
+
+/**
+ * Loads recorded response used by benchmarks.
+ * @param name Name of the resource.
+ * @return Content of the resource.
+ * @throws [IllegalStateException] If there is no such resource.
+ * @since 3.1.0
+ */
+internal fun loadResource(name: String) = checkNotNull(Thread.currentThread().contextClassLoader.getResourceAsStream(name)) { "Missing resource '$name'." }
+        .bufferedReader(Charsets.UTF_8)
+        .use { it.readText() }
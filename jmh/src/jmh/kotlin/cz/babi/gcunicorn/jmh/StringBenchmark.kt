@@ -0,0 +1,55 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.jmh
+
+import cz.babi.gcunicorn.`fun`.containsHtml
+import cz.babi.gcunicorn.`fun`.rot13
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+
+/**
+ * Benchmarks string functions called for every written geocache.
+ *
+ * @since 3.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class StringBenchmark {
+
+    private val hint = "Pod kamenem u stromu, asi metr od cesty. Magnetic."
+
+    private val plainDescription = "The cache is hidden near the old oak. Please, be careful and discreet. ".repeat(40)
+
+    private val htmlDescription = "$plainDescription<p>Enjoy!</p>"
+
+    @Benchmark
+    fun rot13() = hint.rot13()
+
+    @Benchmark
+    fun containsHtmlInPlainText() = plainDescription.containsHtml()
+
+    @Benchmark
+    fun containsHtmlInHtml() = htmlDescription.containsHtml()
+}
@@ -23,6 +23,11 @@ import cz.babi.gcunicorn.webapp.entity.task.Status
 /**
  * Job status model used within webapp - client communication.
  *
+ * @param id Job ID.
+ * @param status Job status.
+ * @param position Position of the job in the queue. Zero if the job is not waiting.
+ * @param skipped Count of geocaches skipped by the job.
+ *
  * @since 1.0.0
  */
-data class JobStatusWeb(val id: Int, val status: Status)
\ No newline at end of file
+data class JobStatusWeb(val id: Int, val status: Status, val position: Int = 0, val skipped: Int = 0)
\ No newline at end of file
@@ -0,0 +1,70 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.webapp.entity.task
+
+import cz.babi.gcunicorn.core.network.service.GeocacheLoadedListener
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.takeWhile
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Feed of geocaches loaded by a search job.
+ *
+ * Every collector receives all geocaches loaded so far followed by those loaded later, until the feed is closed.
+ * It allows a client to download geocaches while the search job is still running. The feed keeps all loaded geocaches,
+ * so it should be released once the job finishes and its result holds them. Geocaches skipped by the job are
+ * collected in [skipped].
+ *
+ * @since 3.1.0
+ */
+class GeocacheFeed : GeocacheLoadedListener {
+
+    /** Loaded geocaches. Null marks the end of the feed. */
+    private val geocaches = MutableSharedFlow<Geocache?>(replay = Int.MAX_VALUE)
+
+    private val skippedGeocaches = CopyOnWriteArrayList<SkippedGeocache>()
+
+    /** Geocaches skipped by the search job so far. */
+    val skipped: List<SkippedGeocache>
+        get() = skippedGeocaches
+
+    override fun geocacheLoaded(geocache: Geocache) {
+        geocaches.tryEmit(geocache)
+    }
+
+    override fun geocacheSkipped(code: String?, reason: Throwable) {
+        skippedGeocaches.add(SkippedGeocache(code, reason.message ?: reason.javaClass.simpleName))
+    }
+
+    /**
+     * Closes the feed. Collectors finish once they receive all geocaches loaded before.
+     */
+    fun close() {
+        geocaches.tryEmit(null)
+    }
+
+    /**
+     * Passes every loaded geocache to given action. It suspends until the feed is closed.
+     * @param action Action invoked for every geocache.
+     */
+    suspend fun collect(action: suspend (Geocache) -> Unit) {
+        geocaches.takeWhile { it != null }.collect { action(it!!) }
+    }
+}
@@ -18,19 +18,46 @@
 
 package cz.babi.gcunicorn.webapp.entity.task
 
+import cz.babi.gcunicorn.`fun`.logger
+import org.slf4j.Logger
+import java.io.BufferedWriter
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.OutputStreamWriter
+import java.io.Writer
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPOutputStream
 
 /**
  * Jobs wrapper.
  *
  * Holds [SearchJob]s for specific users in internal map where key is user's session id.
  *
+ * Finished jobs are retained within given limits only. The oldest finished jobs are removed once a session or all
+ * sessions together hold too many jobs, and every finished job is removed once it gets too old. Running jobs are never
+ * removed. Results of finished jobs can be stored into compressed files, see [store].
+ *
+ * @param directory Directory for stored results of finished jobs.
+ * @param maxJobsPerSession Max count of jobs held for one session.
+ * @param maxJobs Max count of jobs held for all sessions.
+ * @param maxAge Max age of finished jobs in milliseconds.
  * @property sessionJobs Map where key is session ID and value is mutable list of search jobs.
  *
  * @since 1.0.0
  */
-class JobsWrapper {
+class JobsWrapper(private val directory: File = File(System.getProperty("java.io.tmpdir")),
+                  private val maxJobsPerSession: Int = Int.MAX_VALUE,
+                  private val maxJobs: Int = Int.MAX_VALUE,
+                  private val maxAge: Long = Long.MAX_VALUE) {
+
+    companion object {
+        private val LOG: Logger = logger<JobsWrapper>()
+    }
+
     private val sessionJobs: ConcurrentHashMap<String, MutableList<SearchJob>> = ConcurrentHashMap()
+    private val sessionJobIds: ConcurrentHashMap<String, AtomicInteger> = ConcurrentHashMap()
 
     /**
      * Returns search jobs for given session ID.
@@ -44,7 +71,10 @@ class JobsWrapper {
      * @param sessionId Session ID.
      * @return Search jobs.
      */
-    fun getSearchJobs(sessionId: String) = getSessionJobs(sessionId)
+    fun getSearchJobs(sessionId: String): List<SearchJob> {
+        evict()
+        return synchronized(this) { getSessionJobs(sessionId).toList() }
+    }
 
     /**
      * Returns search job of given ID for given session ID.
@@ -52,14 +82,14 @@ class JobsWrapper {
      * @param jobId Job ID.
      * @return Search job.
      */
-    fun getSearchJob(sessionId: String, jobId: Int) = getSessionJobs(sessionId).find { it.id==jobId }
+    fun getSearchJob(sessionId: String, jobId: Int) = synchronized(this) { getSessionJobs(sessionId).find { it.id==jobId } }
 
     /**
      * Returns search jobs count for given session ID.
      * @param sessionId Session ID.
      * @return Search jobs count.
      */
-    fun getSearchJobsCount(sessionId: String) = getSessionJobs(sessionId).size
+    fun getSearchJobsCount(sessionId: String) = synchronized(this) { getSessionJobs(sessionId).size }
 
     /**
      * Returns search jobs count of given status for given session ID.
@@ -67,7 +97,14 @@ class JobsWrapper {
      * @param status Status.
      * @return Search jobs count.
      */
-    fun getSearchJobsCount(sessionId: String, status: Status) = getSessionJobs(sessionId).count { it.getStatus()==status }
+    fun getSearchJobsCount(sessionId: String, status: Status) = synchronized(this) { getSessionJobs(sessionId).count { it.getStatus()==status } }
+
+    /**
+     * Returns ID for a new search job of given session ID. IDs are not reused, even if jobs are removed.
+     * @param sessionId Session ID.
+     * @return New job ID.
+     */
+    fun nextJobId(sessionId: String) = sessionJobIds.getOrPut(sessionId) { AtomicInteger() }.incrementAndGet()
 
     /**
      * Stores given search job of given job ID and given session ID.
@@ -75,6 +112,96 @@ class JobsWrapper {
      * @param searchJob Search job to store.
      */
     fun putSearchJob(sessionId: String, searchJob: SearchJob) {
-        getSessionJobs(sessionId).add(searchJob)
+        synchronized(this) { getSessionJobs(sessionId).add(searchJob) }
+        evict()
+    }
+
+    /**
+     * Removes all search jobs of given session ID. It is supposed to be called once the session is destroyed. Running jobs
+     * are cancelled, a search shared with other sessions keeps running for them, see [SearchCoalescer].
+     * @param sessionId Session ID.
+     */
+    fun removeSession(sessionId: String) {
+        val removed = synchronized(this) {
+            sessionJobIds.remove(sessionId)
+            sessionJobs.remove(sessionId) ?: emptyList()
+        }
+
+        LOG.debug("Removing '{}' search jobs of destroyed session.", removed.size)
+        removed.forEach {
+            it.job?.cancel()
+            it.gpxFile?.delete()
+        }
+    }
+
+    /**
+     * Writes result of given finished job into a compressed file and releases the job's geocaches.
+     * @param searchJob Finished search job.
+     * @param write Writes GPX content of the job.
+     */
+    fun store(searchJob: SearchJob, write: (Writer) -> Unit) {
+        var gpxFile: File? = null
+        try {
+            if(!directory.isDirectory && !directory.mkdirs()) throw IOException("Can not create directory '$directory'.")
+
+            gpxFile = File.createTempFile("gcunicorn", ".gpx.gz", directory)
+            BufferedWriter(OutputStreamWriter(GZIPOutputStream(FileOutputStream(gpxFile)), Charsets.UTF_8)).use(write)
+        } catch(e: IOException) {
+            LOG.warn("Can not store result of search job '{}'. The result is kept in memory.", searchJob.id, e)
+            gpxFile?.delete()
+            return
+        }
+
+        val retained = synchronized(this) {
+            sessionJobs.values.any { jobs -> jobs.any { it===searchJob } }.also { if(it) searchJob.store(gpxFile) }
+        }
+        // The job has been removed meanwhile.
+        if(!retained) gpxFile.delete()
+    }
+
+    /**
+     * Removes finished jobs which are over limits.
+     */
+    private fun evict() {
+        val now = System.currentTimeMillis()
+        val removed = mutableListOf<SearchJob>()
+
+        synchronized(this) {
+            sessionJobs.values.forEach { jobs ->
+                removed += removeFinished(jobs, jobs.count { it.isFinished() && now - it.end!! > maxAge })
+                removed += removeFinished(jobs, jobs.size - maxJobsPerSession)
+            }
+
+            val overLimit = sessionJobs.values.sumOf { it.size } - maxJobs
+            if(overLimit > 0) {
+                sessionJobs.values.flatten()
+                        .filter { it.isFinished() }
+                        .sortedBy { it.end }
+                        .take(overLimit)
+                        .forEach { searchJob ->
+                            sessionJobs.values.forEach { jobs -> if(jobs.removeIf { it===searchJob }) removed += searchJob }
+                        }
+            }
+
+            sessionJobs.entries.removeIf { it.value.isEmpty() }
+        }
+
+        if(removed.isNotEmpty()) {
+            LOG.debug("'{}' finished search jobs have been removed.", removed.size)
+            removed.forEach { it.gpxFile?.delete() }
+        }
+    }
+
+    /**
+     * Removes given count of the oldest finished jobs from given list.
+     * @return Removed jobs.
+     */
+    private fun removeFinished(jobs: MutableList<SearchJob>, count: Int): List<SearchJob> {
+        if(count <= 0) return emptyList()
+
+        val oldest = jobs.filter { it.isFinished() }.sortedBy { it.end }.take(count)
+        jobs.removeAll(oldest)
+
+        return oldest
     }
-}
\ No newline at end of file
+}
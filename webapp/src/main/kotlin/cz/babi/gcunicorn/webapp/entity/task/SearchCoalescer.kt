@@ -0,0 +1,152 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package cz.babi.gcunicorn.webapp.entity.task
+
+import cz.babi.gcunicorn.core.location.Coordinates
+import cz.babi.gcunicorn.core.network.service.GeocacheLoadedListener
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheFilter
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.`fun`.logger
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import org.slf4j.Logger
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Search coalescer.
+ *
+ * Searches of the same user, coordinates, filter and limit submitted while such search is running share the running one
+ * instead of starting their own. All of them get the same result and the same feed of loaded geocaches.
+ *
+ * Searches are coalesced for each user separately, e.g. for the same user logged in from more sessions. Searches of
+ * different users are never shared, because their results differ by user's found and own caches and by membership.
+ *
+ * Every submitter of a search gets its own job. Cancelling it detaches the submitter only, the running search is
+ * cancelled once all of its submitters are detached.
+ *
+ * @since 3.1.0
+ */
+class SearchCoalescer {
+
+    companion object {
+        private val LOG: Logger = logger<SearchCoalescer>()
+    }
+
+    /**
+     * Parameters identifying a search. Results depend on the user as well, e.g. on found caches.
+     *
+     * @param username Name of the user.
+     * @param coordinates Coordinates to search around.
+     * @param cacheFilter Filter of the search.
+     * @param limit Max count of geocaches.
+     */
+    data class Key(val username: String, val coordinates: Coordinates, val cacheFilter: CacheFilter, val limit: Int)
+
+    /**
+     * Running search of a submitter.
+     *
+     * @param task Scheduled job resulting in found geocaches. It is shared by all submitters of the search.
+     * @param feed Feed of geocaches loaded by the job so far. It is closed once the job finishes.
+     * @param job Job of the submitter. It completes together with the shared job. Cancelling it does not cancel the shared job while other submitters are attached.
+     */
+    class Search(val task: SearchScheduler.Task<List<Geocache>>, val feed: GeocacheFeed, val job: Deferred<List<Geocache>>)
+
+    /**
+     * Running search shared by its submitters.
+     */
+    private class SharedSearch(val task: SearchScheduler.Task<List<Geocache>>, val feed: GeocacheFeed) {
+
+        private var submitters = 0
+        private var abandoned = false
+
+        /**
+         * Attaches a new submitter to the search.
+         * @return Job of the submitter or null if the search has been abandoned by all of its submitters already.
+         */
+        @OptIn(ExperimentalCoroutinesApi::class)
+        fun attach(): Deferred<List<Geocache>>? {
+            synchronized(this) {
+                if(abandoned) return null
+                submitters++
+            }
+
+            val job = CompletableDeferred<List<Geocache>>()
+            task.job.invokeOnCompletion { cause ->
+                if(cause==null) job.complete(task.job.getCompleted()) else job.completeExceptionally(cause)
+            }
+            job.invokeOnCompletion {
+                // Cancelled by the submitter, not by the shared job.
+                if(job.isCancelled && !task.job.isCompleted) detach()
+            }
+
+            return job
+        }
+
+        private fun detach() {
+            synchronized(this) {
+                if(--submitters > 0) return
+                abandoned = true
+            }
+
+            LOG.debug("All submitters of the search have been detached. The search is cancelled.")
+            task.job.cancel()
+        }
+    }
+
+    private val searches: ConcurrentHashMap<Key, SharedSearch> = ConcurrentHashMap()
+
+    /**
+     * Returns running search of given key, or starts a new one if there is no such search.
+     * @param key Parameters of the search.
+     * @param start Starts the search. The search reports loaded geocaches to given listener.
+     * @return Running search.
+     * @throws [SearchScheduler.QueueFullException] If a new search has to be started, but it is rejected by the scheduler.
+     */
+    @Throws(SearchScheduler.QueueFullException::class)
+    fun search(key: Key, start: (GeocacheLoadedListener) -> SearchScheduler.Task<List<Geocache>>): Search {
+        while(true) {
+            var started = false
+            val running = searches.computeIfAbsent(key) {
+                started = true
+                val feed = GeocacheFeed()
+                SharedSearch(start(feed), feed)
+            }
+
+            if(started) {
+                // Registered out of the map's update, the job may have finished already.
+                running.task.job.invokeOnCompletion {
+                    running.feed.close()
+                    searches.remove(key, running)
+                }
+            } else {
+                LOG.debug("Joining already running search: {}.", key)
+            }
+
+            running.attach()?.let { return Search(running.task, running.feed, it) }
+
+            // The search is being cancelled, a new one is started.
+            searches.remove(key, running)
+        }
+    }
+
+    /**
+     * Returns count of running searches.
+     */
+    fun getRunningCount() = searches.size
+}
@@ -18,37 +18,102 @@
 
 package cz.babi.gcunicorn.webapp.entity.task
 
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
 import cz.babi.gcunicorn.`fun`.dateFormat
 import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Job
+import java.io.File
 
 /**
  * Search job.
  *
+ * The job releases its [feed] once it finishes, its result is then kept by the job only. The result can be stored into
+ * a file by [store]. The job then releases found geocaches, so they do not occupy memory while the job waits to be
+ * downloaded.
+ *
  * @param id Search job ID.
  * @param start Start time in milliseconds. Default value is 'now'.
  * @param parent Parent job. Default value is new Job.
- * @param job Deferred job.
+ * @param job Deferred job resulting in found geocaches.
+ * @param feed Feed of geocaches loaded by the job so far.
+ * @param task Scheduled job. It tells whether the job is waiting in the queue.
+ * @param skipped Geocaches skipped by the job. They are kept even once the result is stored.
  *
  * @since 1.0.0
  */
-data class SearchJob(val id: Int, val start: Long = System.currentTimeMillis(), val parent: Job = Job(), val job: Deferred<String>) {
+class SearchJob(val id: Int, val start: Long = System.currentTimeMillis(), val parent: Job = Job(), job: Deferred<List<Geocache>>, feed: GeocacheFeed = GeocacheFeed(), task: SearchScheduler.Task<*>? = null, val skipped: List<SkippedGeocache> = feed.skipped) {
+
+    /** Deferred job resulting in found geocaches. It is null once the result is stored. */
+    @Volatile
+    var job: Deferred<List<Geocache>>? = job
+        private set
+
+    /** Feed of geocaches loaded by the job so far. It is null once the job finishes. */
+    @Volatile
+    var feed: GeocacheFeed? = feed
+        private set
+
+    /** Compressed GPX file containing the result. It is null until the result is stored. */
+    @Volatile
+    var gpxFile: File? = null
+        private set
+
+    /** Time in milliseconds the job has finished at. It is null while the job is running. */
+    @Volatile
+    var end: Long? = null
+        private set
+
+    @Volatile
+    private var task: SearchScheduler.Task<*>? = task
+
+    init {
+        job.invokeOnCompletion {
+            end = System.currentTimeMillis()
+            // Collectors of the feed keep it until they finish, new ones read the result of the job.
+            this.feed = null
+        }
+    }
 
     /**
      * Returns status of internal job.
      * @return Status of internal job.
      */
     fun getStatus(): Status {
+        val job = job ?: return Status.RESOLVED
+
         return if (job.isCancelled) Status.CANCELED
+        else if (job.isActive && getQueuePosition() > 0) Status.QUEUED
         else if (job.isActive) Status.ACTIVE
         else if (job.isCompleted) Status.RESOLVED
         else Status.UNKNOWN
     }
 
+    /**
+     * Returns position of the job in the queue.
+     * @return Position in the queue or zero if the job is not waiting.
+     */
+    fun getQueuePosition() = task?.position ?: 0
+
+    /**
+     * Checks whether the job has finished.
+     * @return True if the job has finished, successfully or not.
+     */
+    fun isFinished() = end!=null
+
+    /**
+     * Replaces result of the finished job by given file. Found geocaches are released.
+     * @param gpxFile Compressed GPX file containing the result.
+     */
+    fun store(gpxFile: File) {
+        this.gpxFile = gpxFile
+        job = null
+        task = null
+    }
+
     /**
      * Returns start time formatted by given pattern.
      * @param pattern Pattern to be used.
      * @return Formatted start time.
      */
     fun getReadableStart(pattern: String) = start.dateFormat(pattern)
-}
\ No newline at end of file
+}
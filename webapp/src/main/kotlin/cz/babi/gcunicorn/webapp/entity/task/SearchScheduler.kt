@@ -0,0 +1,222 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.webapp.entity.task
+
+import cz.babi.gcunicorn.`fun`.logger
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.DelicateCoroutinesApi
+import kotlinx.coroutines.GlobalScope
+import kotlinx.coroutines.async
+import org.slf4j.Logger
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * Search scheduler.
+ *
+ * Runs at most given count of search jobs at once. Other jobs wait in a queue. The queue is fair to sessions: waiting
+ * jobs of each session are started in FIFO order and sessions take turns, so one session can not block other ones by
+ * submitting many jobs.
+ *
+ * @param maxRunning Max count of jobs running at once.
+ * @param maxQueued Max count of waiting jobs. Jobs submitted while the queue is full are rejected.
+ * @param dispatcher Dispatcher jobs are run on.
+ * @throws [IllegalArgumentException] If max count of running jobs is not positive or max count of waiting jobs is negative.
+ * @since 3.1.0
+ */
+class SearchScheduler(private val maxRunning: Int, private val maxQueued: Int, private val dispatcher: CoroutineDispatcher = Dispatchers.Default) {
+
+    companion object {
+        private val LOG: Logger = logger<SearchScheduler>()
+    }
+
+    /**
+     * Exception thrown when a job is submitted while the queue is full.
+     */
+    class QueueFullException(message: String) : IllegalStateException(message)
+
+    /**
+     * Scheduled job.
+     *
+     * @param sessionId Session ID of the job's submitter.
+     */
+    class Task<T> internal constructor(val sessionId: String) {
+
+        /** Deferred job. It waits for its turn first. */
+        lateinit var job: Deferred<T>
+            internal set
+
+        /** Position in the queue. Zero means the job is not waiting anymore. */
+        @Volatile
+        var position = 0
+            internal set
+
+        internal val turn = CompletableDeferred<Unit>()
+
+        private val positionListeners = CopyOnWriteArrayList<(Int) -> Unit>()
+
+        /**
+         * Adds listener notified whenever position of the job in the queue changes.
+         * @param listener Listener receiving the new position. Zero means the job has been started.
+         */
+        fun addPositionListener(listener: (Int) -> Unit) {
+            positionListeners.add(listener)
+        }
+
+        internal fun notifyPositionChanged() {
+            val currentPosition = position
+            positionListeners.forEach { it(currentPosition) }
+        }
+    }
+
+    private val lock = Any()
+
+    /** Waiting jobs of sessions. The first session is the one whose job is started next. */
+    private val queues = LinkedHashMap<String, ArrayDeque<Task<*>>>()
+    private var queuedCount = 0
+    private var runningCount = 0
+
+    init {
+        require(maxRunning > 0) { "Max count of running jobs has to be positive number." }
+        require(maxQueued >= 0) { "Max count of waiting jobs can not be negative number." }
+    }
+
+    /**
+     * Submits given job. It is started immediately if there is a free slot, otherwise it waits in the queue.
+     * @param sessionId Session ID of the submitter.
+     * @param block Job itself.
+     * @return Scheduled job.
+     * @throws [QueueFullException] If the queue is full.
+     */
+    @OptIn(DelicateCoroutinesApi::class)
+    @Throws(QueueFullException::class)
+    fun <T> submit(sessionId: String, block: suspend () -> T): Task<T> {
+        val task = Task<T>(sessionId)
+
+        val changed = synchronized(lock) {
+            if(runningCount < maxRunning) {
+                runningCount++
+                task.turn.complete(Unit)
+                emptyList()
+            } else {
+                if(queuedCount >= maxQueued) throw QueueFullException("The queue is full, $queuedCount jobs are waiting already.")
+
+                queues.getOrPut(sessionId) { ArrayDeque() }.addLast(task)
+                queuedCount++
+                updatePositions()
+            }
+        }
+
+        // The job is started even if it is cancelled before its first dispatch, so its slot or queue entry is always released.
+        task.job = GlobalScope.async(dispatcher, CoroutineStart.ATOMIC) {
+            try {
+                task.turn.await()
+                block()
+            } finally {
+                finished(task)
+            }
+        }
+
+        changed.forEach { it.notifyPositionChanged() }
+
+        return task
+    }
+
+    /**
+     * Returns count of waiting jobs.
+     */
+    fun getQueuedCount() = synchronized(lock) { queuedCount }
+
+    /**
+     * Returns count of running jobs.
+     */
+    fun getRunningCount() = synchronized(lock) { runningCount }
+
+    /**
+     * Releases slot of given job or removes the job from the queue if it has not been started. Next waiting job is started.
+     */
+    private fun finished(task: Task<*>) {
+        val changed = synchronized(lock) {
+            if(task.turn.isCompleted) {
+                runningCount--
+            } else {
+                // The job has been cancelled while waiting.
+                queues[task.sessionId]?.let { queue ->
+                    queue.remove(task)
+                    if(queue.isEmpty()) queues.remove(task.sessionId)
+                }
+                queuedCount--
+            }
+
+            val started = mutableListOf<Task<*>>()
+            while(runningCount < maxRunning && queues.isNotEmpty()) {
+                val sessionId = queues.keys.first()
+                val queue = queues.remove(sessionId)!!
+                val next = queue.removeFirst()
+                // The session goes to the end, so other sessions take their turn first.
+                if(queue.isNotEmpty()) queues[sessionId] = queue
+
+                queuedCount--
+                runningCount++
+                next.position = 0
+                next.turn.complete(Unit)
+                started.add(next)
+            }
+
+            LOG.debug("Search job finished. Running jobs: {}, waiting jobs: {}.", runningCount, queuedCount)
+
+            started + updatePositions()
+        }
+
+        changed.distinct().forEach { it.notifyPositionChanged() }
+    }
+
+    /**
+     * Computes positions of waiting jobs in the order they will be started.
+     * @return Jobs whose position has changed.
+     */
+    private fun updatePositions(): List<Task<*>> {
+        val changed = mutableListOf<Task<*>>()
+        val iterators = queues.values.map { it.iterator() }.toMutableList()
+        var position = 1
+
+        while(iterators.isNotEmpty()) {
+            val iterator = iterators.iterator()
+            while(iterator.hasNext()) {
+                val sessionIterator = iterator.next()
+                if(!sessionIterator.hasNext()) {
+                    iterator.remove()
+                    continue
+                }
+
+                val task = sessionIterator.next()
+                if(task.position!=position) {
+                    task.position = position
+                    changed.add(task)
+                }
+                position++
+            }
+        }
+
+        return changed
+    }
+}
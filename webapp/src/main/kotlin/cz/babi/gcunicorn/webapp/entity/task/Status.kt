@@ -24,6 +24,7 @@ package cz.babi.gcunicorn.webapp.entity.task
  * @since 1.0.0
  */
 enum class Status {
+    QUEUED,
     ACTIVE,
     RESOLVED,
     CANCELED,
@@ -24,27 +24,51 @@ import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesParser
 import cz.babi.gcunicorn.core.location.parser.impl.DecimalDegreesRightSideParser
 import cz.babi.gcunicorn.core.location.parser.impl.DegreesDecimalMinuteParser
 import cz.babi.gcunicorn.core.location.parser.impl.ParserWrapper
+import cz.babi.gcunicorn.core.metrics.Metrics
+import cz.babi.gcunicorn.core.network.CircuitBreaker
+import cz.babi.gcunicorn.core.network.ClientConfiguration
 import cz.babi.gcunicorn.core.network.InMemoryCookieJar
 import cz.babi.gcunicorn.core.network.Network
+import cz.babi.gcunicorn.core.network.NetworkStatistics
 import cz.babi.gcunicorn.core.network.interceptor.HeaderInterceptor
 import cz.babi.gcunicorn.core.network.interceptor.LoggingInterceptor
+import cz.babi.gcunicorn.core.network.interceptor.RecordingInterceptor
+import cz.babi.gcunicorn.core.network.interceptor.ReplayInterceptor
+import cz.babi.gcunicorn.core.network.interceptor.RetryInterceptor
+import cz.babi.gcunicorn.core.network.record.TrafficArchive
+import cz.babi.gcunicorn.core.network.service.ServiceConfiguration
 import cz.babi.gcunicorn.core.network.service.geocachingcom.GCWebApi
 import cz.babi.gcunicorn.core.network.service.geocachingcom.GeoCachingCom
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.DiskGeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.GeocacheCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.cache.TrackableCache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint.CheckpointStore
 import cz.babi.gcunicorn.webapp.desktop.Tray
 import cz.babi.gcunicorn.webapp.desktop.TrayCondition
 import cz.babi.gcunicorn.webapp.entity.task.JobsWrapper
+import cz.babi.gcunicorn.webapp.entity.task.SearchCoalescer
+import cz.babi.gcunicorn.webapp.entity.task.SearchScheduler
+import cz.babi.gcunicorn.webapp.spring.web.security.ServiceFactory
+import jakarta.servlet.http.HttpSessionEvent
+import jakarta.servlet.http.HttpSessionListener
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.asCoroutineDispatcher
 import kotlinx.serialization.ExperimentalSerializationApi
 import kotlinx.serialization.json.Json
-import okhttp3.CookieJar
+import okhttp3.Dispatcher
 import okhttp3.Interceptor
 import okhttp3.OkHttpClient
 import org.springframework.beans.factory.annotation.Qualifier
+import org.springframework.beans.factory.annotation.Value
 import org.springframework.context.ApplicationContext
 import org.springframework.context.MessageSource
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Conditional
 import org.springframework.context.annotation.Configuration
 import org.springframework.core.io.ResourceLoader
+import java.io.File
+import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
 import javax.imageio.ImageIO
 
@@ -58,32 +82,75 @@ import javax.imageio.ImageIO
 @Configuration
 class ApplicationConfiguration {
 
+    /** Metrics of searches and of the client. They are exported by [cz.babi.gcunicorn.webapp.spring.web.controller.MetricsController]. */
+    @Bean
+    fun metrics() = Metrics()
+
     @Bean
     fun headerInterceptor() = HeaderInterceptor()
 
     @Bean
     fun loggingInterceptor() = LoggingInterceptor()
 
+    /**
+     * Dispatcher blocking work of searches is done on. In virtual thread mode every task gets own virtual thread, so
+     * reading of pages and storing of results do not hold platform threads while waiting for IO.
+     * Dispatchers.IO can not be closed and virtual threads need no shutdown, so no destroy method is called.
+     */
+    @Bean(destroyMethod = "")
+    fun ioDispatcher(@Value("\${spring.threads.virtual.enabled:false}") virtualThreads: Boolean): CoroutineDispatcher =
+            if(virtualThreads) Executors.newVirtualThreadPerTaskExecutor().asCoroutineDispatcher() else Dispatchers.IO
+
+    /** All users share the breaker, so requests of all of them are paused while geocaching.com is failing. */
+    @Bean
+    fun circuitBreaker(metrics: Metrics, @Value("\${network.circuit-breaker.failure-threshold:5}") failureThreshold: Int, @Value("\${network.circuit-breaker.open-seconds:30}") openSeconds: Long) =
+            CircuitBreaker(failureThreshold, TimeUnit.SECONDS.toMillis(openSeconds)).also { circuitBreaker ->
+                metrics.gauge("gcunicorn_circuit_breaker_open", "Whether requests to geocaching.com are paused.") { if(circuitBreaker.state==CircuitBreaker.State.CLOSED) 0 else 1 }
+            }
+
+    @Bean
+    fun retryInterceptor(circuitBreaker: CircuitBreaker, metrics: Metrics, @Value("\${network.retry.max-retries:3}") maxRetries: Int) = RetryInterceptor(maxRetries, circuitBreaker = circuitBreaker, metrics = metrics)
+
     @Bean
-    fun cookieJar() = InMemoryCookieJar()
+    fun clientConfiguration(@Value("\${network.pool.max-idle-connections:10}") maxIdleConnections: Int,
+                            @Value("\${network.pool.keep-alive-seconds:300}") keepAliveSeconds: Long,
+                            @Value("\${network.dispatcher.max-requests:64}") maxRequests: Int,
+                            @Value("\${network.dispatcher.max-requests-per-host:16}") maxRequestsPerHost: Int,
+                            @Value("\${network.http2:true}") http2: Boolean) =
+            ClientConfiguration(maxIdleConnections, TimeUnit.SECONDS.toMillis(keepAliveSeconds), maxRequests, maxRequestsPerHost, http2)
 
     @Bean
-    fun okHttpClient(headerInterceptor: Interceptor, loggingInterceptor: Interceptor, cookieJar: CookieJar): OkHttpClient = OkHttpClient.Builder()
+    fun networkStatistics(metrics: Metrics) = NetworkStatistics().also { it.bindTo(metrics) }
+
+    /**
+     * Shared client without cookies. Every service derives own client with own cookies from it, see [serviceFactory].
+     * In replay mode no request reaches geocaching.com, all of them are answered from recorded traffic.
+     */
+    @Bean
+    fun okHttpClient(headerInterceptor: Interceptor, loggingInterceptor: Interceptor, retryInterceptor: Interceptor, clientConfiguration: ClientConfiguration, networkStatistics: NetworkStatistics, metrics: Metrics,
+                     @Value("\${spring.threads.virtual.enabled:false}") virtualThreads: Boolean,
+                     @Value("\${network.traffic.record-file:}") recordFile: String,
+                     @Value("\${network.traffic.replay-file:}") replayFile: String,
+                     @Value("\${network.traffic.replay-latency:false}") replayLatency: Boolean): OkHttpClient {
+        val dispatcher = if(virtualThreads) Dispatcher(Executors.newVirtualThreadPerTaskExecutor()) else Dispatcher()
+        metrics.gauge("gcunicorn_http_dispatcher_calls", "HTTP calls of the dispatcher.", "state" to "running") { dispatcher.runningCallsCount() }
+        metrics.gauge("gcunicorn_http_dispatcher_calls", "HTTP calls of the dispatcher.", "state" to "queued") { dispatcher.queuedCallsCount() }
+
+        return OkHttpClient.Builder()
             .connectTimeout(20, TimeUnit.SECONDS)
             .readTimeout(20, TimeUnit.SECONDS)
             .writeTimeout(20, TimeUnit.SECONDS)
             .followRedirects(true)
             .followSslRedirects(true)
-            .cookieJar(cookieJar)
             .addNetworkInterceptor(headerInterceptor)
             .addNetworkInterceptor(loggingInterceptor)
+            .apply { if(replayFile.isNotEmpty()) addInterceptor(ReplayInterceptor(TrafficArchive(File(replayFile)), replayLatency)) }
+            // Recorded responses have to be decoded already, so the recorder goes before the compression interceptor.
+            .apply { if(recordFile.isNotEmpty()) addInterceptor(RecordingInterceptor(TrafficArchive(File(recordFile)))) }
+            .let { clientConfiguration.applyTo(it, dispatcher, networkStatistics) }
+            .addInterceptor(retryInterceptor)
             .build()
-
-    @Bean
-    fun gCWebApi(network: Network) = GCWebApi(network)
-
-    @Bean
-    fun network(okHttpClient: OkHttpClient, json: Json) = Network(okHttpClient, json)
+    }
 
     @Bean
     fun degreesDecimalMinuteParser() = DegreesDecimalMinuteParser()
@@ -108,11 +175,49 @@ class ApplicationConfiguration {
     }
 
     @Bean
-    fun service(network: Network,@Qualifier("parser") parser: Parser, json: Json, gcWebApi: GCWebApi) = GeoCachingCom(network, parser, json, gcWebApi)
+    fun geocacheCache(@Value("\${search.detail-cache.directory}") directory: String, @Value("\${search.detail-cache.max-size-mb:64}") maxSizeMb: Long): GeocacheCache = DiskGeocacheCache(File(directory), maxSizeMb * 1024 * 1024)
+
+    @Bean(destroyMethod = "save")
+    fun trackableCache(@Value("\${search.trackable-cache.file}") file: String, @Value("\${search.trackable-cache.max-count:10000}") maxCount: Int) = TrackableCache(File(file), maxCount)
+
+    /** Searches interrupted by a restart of the application are resumed from their checkpoints once they are submitted again. */
+    @Bean
+    fun checkpointStore(@Value("\${search.checkpoint.directory}") directory: String, @Value("\${search.checkpoint.max-age-minutes:1440}") maxAgeMinutes: Long) =
+            CheckpointStore(File(directory), TimeUnit.MINUTES.toMillis(maxAgeMinutes))
+
+    /** Services of users share connection pool and dispatcher of the client, but every one of them has own cookies and Web Api token. */
+    @Bean
+    fun serviceFactory(okHttpClient: OkHttpClient, @Qualifier("parser") parser: Parser, json: Json, geocacheCache: GeocacheCache, trackableCache: TrackableCache, ioDispatcher: CoroutineDispatcher, metrics: Metrics, @Value("\${search.detail-parallelism:4}") detailParallelism: Int, @Value("\${search.detail-cache.ttl-minutes:60}") detailCacheTtlMinutes: Long, @Value("\${search.detail-retries:2}") detailRetries: Int, @Value("\${search.log-depth:35}") logDepth: Int) = ServiceFactory {
+        val network = Network(okHttpClient.newBuilder().cookieJar(InMemoryCookieJar()).build(), json)
+        GeoCachingCom(network, parser, json, GCWebApi(network), ServiceConfiguration(detailParallelism, TimeUnit.MINUTES.toMillis(detailCacheTtlMinutes), detailRetries, logDepth), geocacheCache = geocacheCache, trackableCache = trackableCache, ioDispatcher = ioDispatcher, metrics = metrics)
+    }
 
     /** The bean is a good candidate for session scoped component. But the component is used during WebSocket communication so there is no way to obtain it from the session. */
     @Bean
-    fun jobsWrapper() = JobsWrapper()
+    fun jobsWrapper(@Value("\${search.retention.directory}") directory: String,
+                    @Value("\${search.retention.max-jobs-per-session:20}") maxJobsPerSession: Int,
+                    @Value("\${search.retention.max-jobs:500}") maxJobs: Int,
+                    @Value("\${search.retention.max-age-minutes:1440}") maxAgeMinutes: Long) =
+            JobsWrapper(File(directory), maxJobsPerSession, maxJobs, TimeUnit.MINUTES.toMillis(maxAgeMinutes))
+
+    /** Search jobs of a session can not be reached once the session is gone, so they are removed with it. */
+    @Bean
+    fun jobsSessionListener(jobsWrapper: JobsWrapper): HttpSessionListener = object : HttpSessionListener {
+        override fun sessionDestroyed(se: HttpSessionEvent) {
+            jobsWrapper.removeSession(se.session.id)
+        }
+    }
+
+    @Bean
+    fun searchCoalescer() = SearchCoalescer()
+
+    /** Searches suspend while waiting for the network, so they run on virtual threads in virtual thread mode and on Dispatchers.Default otherwise. Blocking work of searches is moved to [ioDispatcher] by the service. */
+    @Bean
+    fun searchScheduler(@Value("\${search.scheduler.max-running:2}") maxRunning: Int, @Value("\${search.scheduler.max-queued:20}") maxQueued: Int, @Value("\${spring.threads.virtual.enabled:false}") virtualThreads: Boolean, ioDispatcher: CoroutineDispatcher, metrics: Metrics) =
+            SearchScheduler(maxRunning, maxQueued, if(virtualThreads) ioDispatcher else Dispatchers.Default).also { scheduler ->
+                metrics.gauge("gcunicorn_search_jobs", "Search jobs of the scheduler.", "state" to "running") { scheduler.getRunningCount() }
+                metrics.gauge("gcunicorn_search_jobs", "Search jobs of the scheduler.", "state" to "queued") { scheduler.getQueuedCount() }
+            }
 
     @Bean
     @Conditional(value = [TrayCondition::class])
@@ -29,6 +29,7 @@ import io.undertow.server.XnioBufferPoolAdaptor
 import io.undertow.server.XnioByteBufferPool
 import io.undertow.websockets.jsr.WebSocketDeploymentInfo
 import jakarta.servlet.Filter
+import org.springframework.beans.factory.annotation.Value
 import org.springframework.boot.web.embedded.undertow.UndertowDeploymentInfoCustomizer
 import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory
 import org.springframework.boot.web.server.ErrorPage
@@ -55,6 +56,7 @@ import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver
 import org.xnio.OptionMap
 import org.xnio.Xnio
 import java.util.*
+import java.util.concurrent.Executors
 import java.util.function.Supplier
 
 /**
@@ -70,8 +72,9 @@ class WebConfiguration : WebMvcConfigurer {
     @Bean
     fun dispatcherServlet() = DispatcherServlet()
 
+    /** Spring does not switch Undertow to virtual threads by itself, so in virtual thread mode blocking servlet requests are dispatched to them here. */
     @Bean
-    fun undertowWebServerCustomizer() = WebServerFactoryCustomizer<UndertowServletWebServerFactory> { factory ->
+    fun undertowWebServerCustomizer(@Value("\${spring.threads.virtual.enabled:false}") virtualThreads: Boolean) = WebServerFactoryCustomizer<UndertowServletWebServerFactory> { factory ->
         factory.addErrorPages(
                 ErrorPage(HttpStatus.NOT_FOUND, "/error/404"),
                 ErrorPage(HttpStatus.FORBIDDEN, "/error/403"),
@@ -83,6 +86,13 @@ class WebConfiguration : WebMvcConfigurer {
                         worker = Supplier { Xnio.getInstance("nio", Undertow::class.java.classLoader).createWorker(OptionMap.builder().map) }
                         buffers = XnioByteBufferPool( XnioBufferPoolAdaptor(DefaultByteBufferPool(true, 16 * 1024)))
                 })
+
+                if(virtualThreads) {
+                    Executors.newVirtualThreadPerTaskExecutor().let {
+                        deploymentInfo.executor = it
+                        deploymentInfo.asyncExecutor = it
+                    }
+                }
         })
     }
 
@@ -63,6 +63,8 @@ class WebSecurityConfiguration(
                 it.requestMatchers("/ws/gcUnicorn/**").permitAll()
                     .requestMatchers("/gcUnicorn/**").hasAuthority(ServiceAuthenticationProvider.ROLE)
                     .requestMatchers("/login", "/logout", "/error/**", "/resources/**").permitAll()
+                    // Scrapers are not logged in, the endpoint checks their token itself.
+                    .requestMatchers("/actuator/prometheus").permitAll()
                     .anyRequest().authenticated()
             }
             .csrf { }
@@ -18,9 +18,14 @@
 
 package cz.babi.gcunicorn.webapp.spring.web.controller
 
+import cz.babi.gcunicorn.core.metrics.Metrics
+import cz.babi.gcunicorn.core.network.NetworkStatistics
 import cz.babi.gcunicorn.core.network.service.Service
+import cz.babi.gcunicorn.core.network.service.geocachingcom.checkpoint.CheckpointStore
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheFilter
 import cz.babi.gcunicorn.core.network.service.geocachingcom.model.CacheType
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.Geocache
+import cz.babi.gcunicorn.core.network.service.geocachingcom.model.GeocacheSection
 import cz.babi.gcunicorn.`fun`.Constant
 import cz.babi.gcunicorn.`fun`.dateFormat
 import cz.babi.gcunicorn.`fun`.logger
@@ -28,20 +33,28 @@ import cz.babi.gcunicorn.`fun`.nullableExecute
 import cz.babi.gcunicorn.webapp.entity.CacheFilterWeb
 import cz.babi.gcunicorn.webapp.entity.JobStatusWeb
 import cz.babi.gcunicorn.webapp.entity.task.JobsWrapper
+import cz.babi.gcunicorn.webapp.entity.task.SearchCoalescer
 import cz.babi.gcunicorn.webapp.entity.task.SearchJob
+import cz.babi.gcunicorn.webapp.entity.task.SearchScheduler
 import cz.babi.gcunicorn.webapp.entity.task.Status
 import cz.babi.gcunicorn.webapp.spring.validation.CacheFilterWebValidator
+import cz.babi.gcunicorn.webapp.spring.web.security.ServiceAuthenticationProvider
 import jakarta.servlet.http.HttpServletResponse
 import jakarta.servlet.http.HttpSession
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.DelicateCoroutinesApi
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.GlobalScope
 import kotlinx.coroutines.Job
-import kotlinx.coroutines.async
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
 import org.slf4j.Logger
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.http.ResponseEntity
 import org.springframework.messaging.simp.SimpMessagingTemplate
+import org.springframework.security.core.Authentication
 import org.springframework.stereotype.Controller
 import org.springframework.ui.Model
 import org.springframework.validation.BindingResult
@@ -51,7 +64,13 @@ import org.springframework.web.bind.annotation.PathVariable
 import org.springframework.web.bind.annotation.PostMapping
 import org.springframework.web.bind.annotation.RequestMapping
 import org.springframework.web.bind.annotation.RequestParam
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter
+import java.io.File
+import java.io.FileInputStream
 import java.io.IOException
+import java.io.InputStreamReader
+import java.io.Writer
+import java.util.zip.GZIPInputStream
 
 /**
  * gcUnicorn controller.
@@ -59,21 +78,30 @@ import java.io.IOException
  * Handles requests to __/gcUnicorn/&#42;&#42;__ paths.
  *
  * @param cacheFilterWebValidator Validator for web cache filter.
- * @param service Service.
  * @param jobsWrapper Job wrapper. Holds all search jobs.
+ * @param searchCoalescer Search coalescer. Shares running searches between the same requests.
+ * @param searchScheduler Search scheduler. Limits count of running searches.
  * @param simpMessagingTemplate Simple message template.
+ * @param metrics Metrics. Time of building of GPX files is recorded in them.
  *
  * @since 1.0.0
  */
 @Controller
 @RequestMapping(path = ["/gcUnicorn"])
 class GcUnicornController(@param:Autowired private val cacheFilterWebValidator: CacheFilterWebValidator,
-                          @param:Autowired private val service: Service,
                           @param:Autowired private val jobsWrapper: JobsWrapper,
-                          @param:Autowired private val simpMessagingTemplate: SimpMessagingTemplate) {
+                          @param:Autowired private val searchCoalescer: SearchCoalescer,
+                          @param:Autowired private val searchScheduler: SearchScheduler,
+                          @param:Autowired private val simpMessagingTemplate: SimpMessagingTemplate,
+                          @param:Autowired private val ioDispatcher: CoroutineDispatcher,
+                          @param:Autowired private val networkStatistics: NetworkStatistics,
+                          @param:Autowired private val checkpointStore: CheckpointStore,
+                          @param:Autowired private val metrics: Metrics) {
 
     companion object {
         private val LOG: Logger = logger<GcUnicornController>()
+
+        private val MEDIA_TYPE_GPX = MediaType.parseMediaType("application/gpx+xml;charset=UTF-8")
     }
 
     @GetMapping(path = ["/search"])
@@ -92,10 +120,15 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
         @RequestParam(name = "includeOwn", required = false, defaultValue = "0") includeOwn: Boolean,
         @RequestParam(name = "includeFound", required = false, defaultValue = "0") includeFound: Boolean,
         @RequestParam(name = "skipPremium", required = false, defaultValue = "1") skipPremium: Boolean,
+        @RequestParam(name = "includeLogs", required = false, defaultValue = "0") includeLogs: Boolean,
+        @RequestParam(name = "includeTrackables", required = false, defaultValue = "0") includeTrackables: Boolean,
+        @RequestParam(name = "includeSpoilers", required = false, defaultValue = "0") includeSpoilers: Boolean,
+        @RequestParam(name = "includeWaypoints", required = false, defaultValue = "0") includeWaypoints: Boolean,
         bindingResult: BindingResult,
         model: Model,
         httpServletResponse: HttpServletResponse,
-        httpSession: HttpSession
+        httpSession: HttpSession,
+        authentication: Authentication
     ): String {
         // Process validation of input parameters.
         cacheFilterWebValidator.validate(cacheFilterWeb, bindingResult)
@@ -104,27 +137,58 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
             return "search"
         }
 
+        val service = ServiceAuthenticationProvider.getService(authentication)
         val parent = Job()
-        val jobId = jobsWrapper.getSearchJobsCount(httpSession.id) + 1
-        val job = GlobalScope.async {
-            service.createGpx(
-                    service.lookForCaches(
-                            cacheFilterWebValidator.parser.parse(cacheFilterWeb.coordinates!!),
-                            CacheFilter(listOf(CacheType.findByCode(cacheFilterWeb.cacheType!!)), cacheFilterWeb.distance!!, allowDisabled, !includeOwn, !includeFound, skipPremium),
-                            cacheFilterWeb.count!!,
-                            null
-                    ),
-                    false)
-
-        }.apply {
-            invokeOnCompletion {
-                // Should be as fast as possible.
-                notifyStatusChanged(JobStatusWeb(jobId, jobsWrapper.getSearchJob(httpSession.id, jobId)!!.getStatus()))
-                notifyActiveCountChanged(jobsWrapper.getSearchJobsCount(httpSession.id, Status.ACTIVE))
+        val jobId = jobsWrapper.nextJobId(httpSession.id)
+        val sections = mapOf(
+                GeocacheSection.LOGBOOK to includeLogs,
+                GeocacheSection.TRACKABLES to includeTrackables,
+                GeocacheSection.SPOILERS to includeSpoilers,
+                GeocacheSection.WAYPOINTS to includeWaypoints
+        ).filterValues { it }.keys
+        val key = SearchCoalescer.Key(
+                authentication.name,
+                cacheFilterWebValidator.parser.parse(cacheFilterWeb.coordinates!!),
+                CacheFilter(listOf(CacheType.findByCode(cacheFilterWeb.cacheType!!)), cacheFilterWeb.distance!!, allowDisabled, !includeOwn, !includeFound, skipPremium, sections),
+                cacheFilterWeb.count!!
+        )
+        // The same search submitted by the same user in another session may be running already. In that case its result is shared.
+        val search = try {
+            searchCoalescer.search(key) { listener ->
+                searchScheduler.submit(httpSession.id) {
+                    // The key identifies the search, so the same search interrupted by a restart is resumed.
+                    val checkpoint = checkpointStore.open(key.toString())
+                    service.lookForCaches(key.coordinates, key.cacheFilter, key.limit, listener, checkpoint).also { checkpoint.delete() }
+                }
             }
+        } catch (e: SearchScheduler.QueueFullException) {
+            LOG.warn("Search has been rejected.", e)
+            httpServletResponse.status = HttpStatus.TOO_MANY_REQUESTS.value()
+            fillModelWithDefaultAttributes(model, httpSession)
+            model.addAttribute("searchRejected", true)
+            return "search"
         }
 
-        jobsWrapper.putSearchJob(httpSession.id, SearchJob(parent = parent, job = job, id = jobId))
+        val searchJob = SearchJob(parent = parent, job = search.job, id = jobId, feed = search.feed, task = search.task)
+        jobsWrapper.putSearchJob(httpSession.id, searchJob)
+
+        search.task.addPositionListener { position ->
+            notifyStatusChanged(JobStatusWeb(jobId, searchJob.getStatus(), position))
+            notifyActiveCountChanged(getActiveJobsCount(httpSession))
+        }
+        search.job.invokeOnCompletion { cause ->
+            // Should be as fast as possible.
+            notifyStatusChanged(JobStatusWeb(jobId, searchJob.getStatus(), skipped = searchJob.skipped.size))
+            notifyActiveCountChanged(getActiveJobsCount(httpSession))
+            LOG.debug("Network statistics: {}", networkStatistics.snapshot())
+
+            if(cause==null) {
+                // Found geocaches are moved out of memory until they are downloaded.
+                GlobalScope.launch(ioDispatcher) {
+                    jobsWrapper.store(searchJob) { writer -> writeGpx(service, search.job.getCompleted(), writer) }
+                }
+            }
+        }
 
         httpServletResponse.setHeader("Location", "/queue/$jobId")
         httpServletResponse.status = HttpStatus.ACCEPTED.value()
@@ -135,7 +199,7 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
     @GetMapping(path = [ "/queue" ])
     suspend fun queue(model: Model, httpSession: HttpSession): String {
         model.addAttribute("searchJobs", jobsWrapper.getSearchJobs(httpSession.id))
-        model.addAttribute("activeJobsCount", jobsWrapper.getSearchJobsCount(httpSession.id, Status.ACTIVE))
+        model.addAttribute("activeJobsCount", getActiveJobsCount(httpSession))
 
         return "queue"
     }
@@ -143,16 +207,17 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
     @GetMapping(path = ["/queue/{jobId}/status"])
     suspend fun queue(@PathVariable(name = "jobId", required = true) jobId: Int, httpServletResponse: HttpServletResponse, httpSession: HttpSession) {
         jobsWrapper.getSearchJob(httpSession.id, jobId).nullableExecute({
-            when {
-                this.job.isActive -> {
+            when(getStatus()) {
+                Status.QUEUED, Status.ACTIVE -> {
                     httpServletResponse.status = HttpStatus.PROCESSING.value()
                     httpServletResponse.setHeader("Location", "/queue/$jobId")
                 }
-                this.job.isCancelled -> httpServletResponse.status = HttpStatus.GONE.value()
-                this.job.isCompleted -> {
+                Status.CANCELED -> httpServletResponse.status = HttpStatus.GONE.value()
+                Status.RESOLVED -> {
                     httpServletResponse.status = HttpStatus.OK.value()
                     httpServletResponse.setHeader("Location", "/queue/$jobId/gpx")
                 }
+                Status.UNKNOWN -> {}
             }
         }, {
             httpServletResponse.status = HttpStatus.NOT_FOUND.value()
@@ -161,16 +226,24 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
 
     @ExperimentalCoroutinesApi
     @GetMapping(path = ["/queue/{jobId}/gpx"])
-    fun gpx(@PathVariable(name = "jobId", required = true) jobId: Int, httpServletResponse: HttpServletResponse, httpSession: HttpSession) {
+    fun gpx(@PathVariable(name = "jobId", required = true) jobId: Int, httpServletResponse: HttpServletResponse, httpSession: HttpSession, authentication: Authentication) {
         jobsWrapper.getSearchJob(httpSession.id, jobId).nullableExecute({
-            if(this.job.isCompleted) {
+            if(isFinished()) {
+                // The result is either still in memory or it has been stored into a file already.
+                val job = job
+                val gpxFile = gpxFile
+
                 httpServletResponse.characterEncoding = Charsets.UTF_8.name()
                 httpServletResponse.setHeader("Content-Type", "application/gpx+xml")
                 httpServletResponse.setHeader("Content-Disposition", "attachment;filename=gcunicorn_${start.dateFormat(Constant.DATETIME_PATTERN_GPX)}.gpx")
 
                 httpServletResponse.writer.use {
                     try {
-                        it.print(job.getCompleted())
+                        if(job!=null) {
+                            writeGpx(ServiceAuthenticationProvider.getService(authentication), job.getCompleted(), it)
+                        } else {
+                            copyStoredGpx(gpxFile!!, it)
+                        }
                         it.flush()
                     } catch (e: IllegalStateException) {
                         LOG.warn("The job '{}' has not finished yet!", jobId, e)
@@ -191,6 +264,98 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
         })
     }
 
+    /**
+     * Streams GPX file of given job. The header is sent immediately and every geocache is sent as soon as it is loaded,
+     * so the file can be downloaded while the job is still running. The response ends once the job finishes.
+     *
+     * The response is written by a coroutine, no thread waits for loaded geocaches. If the job fails or it is cancelled
+     * meanwhile, the response is aborted without the end of the GPX file, so the client does not take it as complete.
+     * @param jobId Job ID.
+     * @param httpSession HTTP session.
+     * @param authentication Authentication of the user.
+     * @return Streamed GPX file.
+     */
+    @OptIn(DelicateCoroutinesApi::class, ExperimentalCoroutinesApi::class)
+    @GetMapping(path = ["/queue/{jobId}/gpx/stream"])
+    fun gpxStream(@PathVariable(name = "jobId", required = true) jobId: Int, httpSession: HttpSession, authentication: Authentication): ResponseEntity<ResponseBodyEmitter> {
+        val service = ServiceAuthenticationProvider.getService(authentication)
+        val searchJob = jobsWrapper.getSearchJob(httpSession.id, jobId) ?: return ResponseEntity.notFound().build()
+        if(searchJob.getStatus()==Status.CANCELED) return ResponseEntity.status(HttpStatus.GONE).build()
+        // Read in this order, the job releases its feed once it finishes and its result once the result is stored.
+        val job = searchJob.job
+        val feed = searchJob.feed
+        val gpxFile = searchJob.gpxFile
+
+        // The response ends together with the job, see 'spring.mvc.async.request-timeout'.
+        val emitter = ResponseBodyEmitter()
+        val streaming = GlobalScope.launch(ioDispatcher) {
+            val writer = EmitterWriter(emitter)
+            try {
+                if(job==null) {
+                    // The job has finished and its result has been stored already.
+                    copyStoredGpx(gpxFile!!, writer)
+                } else if(feed==null) {
+                    // The job has finished, but its result has not been stored yet. It fails if the job has failed.
+                    writeGpx(service, job.getCompleted(), writer)
+                } else {
+                    val gpxWriter = service.createGpxWriter(writer, false)
+                    writer.flush()
+                    feed.collect {
+                        gpxWriter.write(it)
+                        writer.flush()
+                    }
+                    // The feed is closed once the shared search finishes, successfully or not. The job of this session follows it.
+                    job.join()
+                    job.getCompletionExceptionOrNull()?.let { throw it }
+                    gpxWriter.finish()
+                }
+                writer.flush()
+                emitter.complete()
+            } catch (e: Exception) {
+                if(isActive) {
+                    LOG.warn("Can not stream gpx file of the job '{}' to output stream.", jobId, e)
+                    emitter.completeWithError(e)
+                }
+            }
+        }
+        // The client has gone.
+        emitter.onError { streaming.cancel() }
+        emitter.onTimeout { streaming.cancel() }
+
+        return ResponseEntity.ok()
+                .contentType(MEDIA_TYPE_GPX)
+                .header("Content-Disposition", "attachment;filename=gcunicorn_${searchJob.start.dateFormat(Constant.DATETIME_PATTERN_GPX)}.gpx")
+                .body(emitter)
+    }
+
+    /**
+     * Writes GPX file of given geocaches.
+     * @param service Service to create GPX file with.
+     * @param geocaches Geocaches to write.
+     * @param writer Writer to write to.
+     * @throws [IOException] If the writer fails.
+     */
+    @Throws(IOException::class)
+    private fun writeGpx(service: Service, geocaches: List<Geocache>, writer: Writer) {
+        metrics.stage(Metrics.Stage.GPX_BUILD).time {
+            service.createGpxWriter(writer, false).apply {
+                geocaches.forEach { geocache -> write(geocache) }
+                finish()
+            }
+        }
+    }
+
+    /**
+     * Copies stored GPX file of a finished job into given writer.
+     * @param gpxFile Compressed GPX file.
+     * @param writer Writer to write to.
+     * @throws [IOException] If the file can not be read, e.g. it has been removed meanwhile, or the writer fails.
+     */
+    @Throws(IOException::class)
+    private fun copyStoredGpx(gpxFile: File, writer: Writer) {
+        InputStreamReader(GZIPInputStream(FileInputStream(gpxFile)), Charsets.UTF_8).use { it.copyTo(writer) }
+    }
+
     /**
      * Some attributes are the same for some requests.
      * @param model Spring model.
@@ -202,6 +367,13 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
         model.addAttribute("queueSize", jobsWrapper.getSearchJobsCount(httpSession.id))
     }
 
+    /**
+     * Returns count of unfinished jobs, including those waiting in the queue.
+     * @param httpSession HTTP session.
+     * @return Count of unfinished jobs.
+     */
+    private fun getActiveJobsCount(httpSession: HttpSession) = jobsWrapper.getSearchJobsCount(httpSession.id, Status.ACTIVE) + jobsWrapper.getSearchJobsCount(httpSession.id, Status.QUEUED)
+
     /**
      * Sends notification about job status changed.
      * @param newJobStatus New job status.
@@ -217,4 +389,34 @@ class GcUnicornController(@param:Autowired private val cacheFilterWebValidator:
     private fun notifyActiveCountChanged(activeCount: Int) {
         simpMessagingTemplate.convertAndSend("/topic/queue/activeCountChanged", activeCount)
     }
+
+    /**
+     * Writer sending written text to the client of given emitter. Text is sent once the writer is flushed or once
+     * enough of it is buffered.
+     * @param emitter Emitter of the response.
+     */
+    private class EmitterWriter(private val emitter: ResponseBodyEmitter) : Writer() {
+
+        companion object {
+            private const val BUFFER_SIZE = 8192
+        }
+
+        private val buffer = StringBuilder(BUFFER_SIZE)
+
+        override fun write(cbuf: CharArray, off: Int, len: Int) {
+            buffer.appendRange(cbuf, off, off + len)
+            if(buffer.length >= BUFFER_SIZE) flush()
+        }
+
+        override fun flush() {
+            if(buffer.isEmpty()) return
+
+            emitter.send(buffer.toString(), MEDIA_TYPE_GPX)
+            buffer.setLength(0)
+        }
+
+        override fun close() {
+            flush()
+        }
+    }
 }
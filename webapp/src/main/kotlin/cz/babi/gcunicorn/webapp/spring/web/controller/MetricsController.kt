@@ -0,0 +1,75 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.webapp.spring.web.controller
+
+import cz.babi.gcunicorn.core.metrics.Metrics
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.http.ResponseEntity
+import org.springframework.web.bind.annotation.GetMapping
+import org.springframework.web.bind.annotation.RequestHeader
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.RestController
+import java.security.MessageDigest
+
+/**
+ * Metrics controller.
+ *
+ * Handles requests to __/actuator/&#42;&#42;__ paths. Metrics are exported in Prometheus text format, so they can be
+ * scraped without any other dependency.
+ *
+ * Metrics reveal operational data, so they are exported only if a scrape token is configured. A scraper has to pass the
+ * token as a bearer token.
+ *
+ * @param metrics Metrics to export.
+ * @param token Token required from scrapers. Metrics are not exported if it is empty.
+ *
+ * @since 3.1.0
+ */
+@RestController
+@RequestMapping(path = ["/actuator"])
+class MetricsController(@param:Autowired private val metrics: Metrics,
+                        @param:Value("\${metrics.prometheus.token:}") private val token: String) {
+
+    companion object {
+        private const val CONTENT_TYPE_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8"
+        private const val BEARER = "Bearer "
+    }
+
+    @GetMapping(path = ["/prometheus"], produces = [CONTENT_TYPE_PROMETHEUS])
+    fun prometheus(@RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) authorization: String?): ResponseEntity<String> {
+        if(token.isEmpty()) return ResponseEntity.notFound().build()
+        if(!isAuthorized(authorization)) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).header(HttpHeaders.WWW_AUTHENTICATE, BEARER.trim()).build()
+
+        return ResponseEntity.ok(StringBuilder().also { metrics.writePrometheus(it) }.toString())
+    }
+
+    /**
+     * Checks whether given authorization header contains the scrape token. Tokens are compared in constant time.
+     * @param authorization Value of authorization header.
+     * @return True if the header contains the token.
+     */
+    private fun isAuthorized(authorization: String?): Boolean {
+        if(authorization==null || !authorization.startsWith(BEARER)) return false
+
+        return MessageDigest.isEqual(authorization.substring(BEARER.length).trim().toByteArray(), token.toByteArray())
+    }
+}
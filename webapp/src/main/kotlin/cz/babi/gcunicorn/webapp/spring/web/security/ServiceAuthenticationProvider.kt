@@ -30,28 +30,41 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority
 import org.springframework.stereotype.Component
 
 /**
- * Authentication provider which tries to log in into given service.
+ * Authentication provider which tries to log in into a service.
  *
- * @param service Service to log in with.
+ * Every authentication gets its own service. The logged-in service is kept as details of the authentication, see [getService].
+ *
+ * @param serviceFactory Factory of services to log in with.
  *
  * @since 1.0.0
  */
 @Component
-class ServiceAuthenticationProvider(private val service: Service) : AuthenticationProvider {
+class ServiceAuthenticationProvider(private val serviceFactory: ServiceFactory) : AuthenticationProvider {
 
     companion object {
         private val LOG = logger<ServiceAuthenticationProvider>()
         const val ROLE = "gcuser"
+
+        /**
+         * Returns service of given authentication.
+         * @param authentication Authentication made by this provider.
+         * @return Logged-in service of the user.
+         * @throws [IllegalStateException] If the authentication has not been made by this provider.
+         */
+        fun getService(authentication: Authentication) = authentication.details as? Service ?: throw IllegalStateException("There is no service for user '${authentication.name}'.")
     }
 
     override fun authenticate(authentication: Authentication?): Authentication? {
         authentication?.let {
             try {
+                val service = serviceFactory.create()
                 runBlocking {
                     service.login(Credentials(it.name, it.credentials.toString()))
                 }
 
-                return UsernamePasswordAuthenticationToken(it.name, it.credentials, listOf(SimpleGrantedAuthority(ROLE)))
+                return UsernamePasswordAuthenticationToken(it.name, it.credentials, listOf(SimpleGrantedAuthority(ROLE))).apply {
+                    details = service
+                }
             } catch(e: LoginException) {
                 LOG.warn("Can not log in with provided credentials: '${it.name}:***'.", e)
             } catch(e: IllegalArgumentException) {
@@ -0,0 +1,38 @@
+/*
+ * gcUnicorn
+ * Copyright (c) 2026 Martin Misiarz
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License version 2
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package cz.babi.gcunicorn.webapp.spring.web.security
+
+import cz.babi.gcunicorn.core.network.service.Service
+
+/**
+ * Factory of services.
+ *
+ * Every logged-in user gets own service with own cookies and tokens, so users do not share their geocaching.com
+ * sessions and they can search in parallel.
+ *
+ * @since 3.1.0
+ */
+fun interface ServiceFactory {
+
+    /**
+     * Creates new service which is not logged in yet.
+     * @return New service.
+     */
+    fun create(): Service
+}
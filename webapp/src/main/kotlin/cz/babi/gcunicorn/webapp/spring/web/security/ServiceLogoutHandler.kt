@@ -28,16 +28,16 @@ import org.springframework.security.web.authentication.logout.LogoutHandler
 import org.springframework.stereotype.Component
 
 /**
- * Logout handler.
- *
- * @param service Service to log out with.
+ * Logout handler. It logs out service of the user, which releases user's cookies.
  *
  * @since 1.0.0
  */
 @Component
-class ServiceLogoutHandler(private val service: Service) : LogoutHandler {
+class ServiceLogoutHandler : LogoutHandler {
 
     override fun logout(request: HttpServletRequest?, response: HttpServletResponse?, authentication: Authentication?) {
+        val service = authentication?.details as? Service ?: return
+
         try {
             runBlocking {
                 service.logout()